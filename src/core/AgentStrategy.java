@@ -0,0 +1,31 @@
+package core;
+
+import core.model.Agent;
+import core.model.GameInfo;
+import core.model.GameSetting;
+import core.model.Request;
+
+/**
+ * シミュレーションで同じJVM上のエージェントとして動作する戦略。
+ * ゲームごと、エージェントごとに生成され、同じゲームのスレッドから呼び出される。
+ * 渡されるGameInfoはサーバ側と共有されるため、変更してはならない。
+ */
+public interface AgentStrategy {
+	/**
+	 * INITIALIZE/DAILY_INITIALIZE/FINISHの通知を受け取る。
+	 */
+	default void update(Request request, GameInfo gameInfo, GameSetting gameSetting) {
+	}
+
+	String talk();
+
+	String whisper();
+
+	Agent vote(GameInfo gameInfo);
+
+	Agent divine(GameInfo gameInfo);
+
+	Agent guard(GameInfo gameInfo);
+
+	Agent attack(GameInfo gameInfo);
+}
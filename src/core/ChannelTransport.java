@@ -0,0 +1,91 @@
+package core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import libs.LineQueue;
+import libs.SelectorReactor;
+import utils.JsonParser;
+
+public class ChannelTransport implements Transport, SelectorReactor.LineHandler {
+	private final SelectorReactor.Endpoint endpoint;
+	private final LineQueue lineQueue = new LineQueue();
+	private final long writeTimeout;
+	private final ReentrantLock writeLock = new ReentrantLock();
+	// 送信用のバッファ (接続ごとに再利用する)
+	private ByteBuffer writeBuffer = ByteBuffer.allocate(8 * 1024);
+	private final OutputStream outputStream = new OutputStream() {
+		@Override
+		public void write(int b) {
+			ensureRemaining(1);
+			writeBuffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			ensureRemaining(len);
+			writeBuffer.put(b, off, len);
+		}
+	};
+
+	public ChannelTransport(SocketChannel channel, SelectorReactor reactor, long writeTimeout) throws IOException {
+		this.writeTimeout = writeTimeout;
+		this.endpoint = reactor.register(channel, this);
+	}
+
+	@Override
+	public boolean onLine(String line) {
+		return lineQueue.add(line);
+	}
+
+	@Override
+	public void onClose(IOException exception) {
+		lineQueue.close(exception);
+	}
+
+	@Override
+	public int write(Object packet) throws IOException {
+		writeLock.lock();
+		try {
+			// JSONを送信用のバッファへ直接書き込む
+			writeBuffer.clear();
+			JsonParser.write(outputStream, packet);
+			outputStream.write('\n');
+			writeBuffer.flip();
+			int length = writeBuffer.remaining();
+			endpoint.write(writeBuffer, writeTimeout);
+			return length;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void ensureRemaining(int length) {
+		if (writeBuffer.remaining() >= length) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + length));
+		writeBuffer.flip();
+		buffer.put(writeBuffer);
+		writeBuffer = buffer;
+	}
+
+	@Override
+	public String readLine(long timeout) throws IOException, InterruptedException, TimeoutException {
+		return lineQueue.poll(timeout);
+	}
+
+	@Override
+	public int clear() {
+		return lineQueue.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		endpoint.close();
+	}
+}
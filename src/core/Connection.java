@@ -1,16 +1,17 @@
 package core;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jdk.net.ExtendedSocketOptions;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -21,9 +22,8 @@ import core.model.Config;
 import core.model.Packet;
 import core.model.Request;
 import core.model.Role;
-import libs.CallableBufferedReader;
 import libs.RawFileLogger;
-import utils.JsonParser;
+import libs.SelectorReactor;
 
 public class Connection {
 	private static final Logger logger = LogManager.getLogger(Connection.class);
@@ -31,30 +31,20 @@ public class Connection {
 	private final Config config;
 	private final Agent agent;
 	private final Socket socket;
-	private final BufferedReader bufferedReader;
-	private final BufferedWriter bufferedWriter;
+	private final Transport transport;
 
-	private boolean isAlive = true;
+	// 一斉送信のスレッドからも参照する
+	private volatile boolean isAlive = true;
 	private boolean hasException = false;
 	private Exception exception = null;
 	private Exception causeException = null;
 	private Request causeRequest = null;
 
 	private String requestName() {
-		logger.info("Request name:" + socket);
+		logger.info("Request name:" + (socket != null ? socket : transport));
 		try {
-			ExecutorService pool = Executors.newSingleThreadExecutor();
-			bufferedWriter.append(JsonParser.encode(new Packet(Request.NAME)));
-			bufferedWriter.append("\n");
-			bufferedWriter.flush();
-			CallableBufferedReader task = new CallableBufferedReader(getBufferedReader());
-			Future<String> future = pool.submit(task);
-			String line = config.responseTimeout() > 0 ? future.get(
-					config.responseTimeout(), TimeUnit.MILLISECONDS) : future.get();
-			if (!task.isSuccess()) {
-				throw task.getException();
-			}
-			pool.shutdown();
+			send(new Packet(Request.NAME));
+			String line = readLine(config.responseTimeout());
 			logger.info(String.format("Request name: %s", line));
 			return line.isEmpty() ? null : line;
 		} catch (Exception e) {
@@ -64,11 +54,55 @@ public class Connection {
 		return null;
 	}
 
+	public static Socket openSocket(Config config, String hostname, int port) throws IOException {
+		if (config.useNioTransport()) {
+			return SocketChannel.open(new InetSocketAddress(hostname, port)).socket();
+		}
+		return new Socket(hostname, port);
+	}
+
+	public static ServerSocket openServerSocket(Config config, int port) throws IOException {
+		if (config.useNioTransport()) {
+			return ServerSocketChannel.open().bind(new InetSocketAddress(port)).socket();
+		}
+		return new ServerSocket(port);
+	}
+
+	private static void enableKeepAlive(Socket socket, Config config) throws IOException {
+		// 応答のない相手側の異常終了をTCPのキープアライブで検知する
+		socket.setKeepAlive(true);
+		int idle = Math.max((int) Math.ceil(config.responseTimeout() / 1000.0), 1);
+		if (socket.supportedOptions().contains(ExtendedSocketOptions.TCP_KEEPIDLE)) {
+			socket.setOption(ExtendedSocketOptions.TCP_KEEPIDLE, idle);
+			socket.setOption(ExtendedSocketOptions.TCP_KEEPINTERVAL, 1);
+			socket.setOption(ExtendedSocketOptions.TCP_KEEPCOUNT, 3);
+		}
+	}
+
+	private static Transport createTransport(Socket socket, Config config) throws IOException {
+		enableKeepAlive(socket, config);
+		// パケットは1行ずつまとめて書き込むため、Nagleアルゴリズムによる送信の遅延は不要
+		socket.setTcpNoDelay(true);
+		if (config.useNioTransport() && socket.getChannel() != null) {
+			return new ChannelTransport(socket.getChannel(),
+					SelectorReactor.getShared(config.nioSelectorThreads()), config.responseTimeout());
+		}
+		return new SocketTransport(socket);
+	}
+
 	public Connection(Socket socket, Config config, Set<Integer> usedNumberSet) throws IOException {
+		this(socket, createTransport(socket, config), config, usedNumberSet);
+	}
+
+	// ソケットを経由しないエージェント (InMemoryTransport) との接続
+	public Connection(Transport transport, Config config, Set<Integer> usedNumberSet) {
+		this(null, transport, config, usedNumberSet);
+	}
+
+	private Connection(Socket socket, Transport transport, Config config, Set<Integer> usedNumberSet) {
 		this.socket = socket;
+		this.transport = transport;
 		this.config = config;
-		bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-		bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
 		int agentNum = 1;
 		int humanNum = config.joinHuman() ? config.humanAgentNum() : -1;
 		String name = requestName();
@@ -117,19 +151,41 @@ public class Connection {
 		return socket;
 	}
 
-	public BufferedReader getBufferedReader() {
-		return bufferedReader;
+	private boolean isMetricsEnabled() {
+		return config.metricsPort() > 0;
 	}
 
-	public BufferedWriter getBufferedWriter() {
-		return bufferedWriter;
+	public void send(Object packet) throws IOException {
+		// 切断後は書き込み途中のパケットに続けて書き込まない
+		if (!isAlive) {
+			throw new EOFException("Connection closed: " + agent);
+		}
+		int length = transport.write(packet);
+		// 名前の取得前とメトリクスの無効時は集計しない
+		if (agent != null && isMetricsEnabled()) {
+			Metrics.addBytesOut(agent.name, length);
+		}
+	}
+
+	public String readLine(long timeout) throws IOException, InterruptedException, TimeoutException {
+		String line = transport.readLine(timeout);
+		// 受信量の集計のためだけに行を再エンコードするため、メトリクスの無効時は行わない
+		if (agent != null && line != null && isMetricsEnabled()) {
+			Metrics.addBytesIn(agent.name, line.getBytes(StandardCharsets.UTF_8).length + 1);
+		}
+		return line;
+	}
+
+	public int clearResponses() {
+		return transport.clear();
 	}
 
 	public void close() {
 		try {
-			bufferedReader.close();
-			bufferedWriter.close();
-			socket.close();
+			transport.close();
+			if (socket != null) {
+				socket.close();
+			}
 			logger.info("Connection closed: " + agent);
 		} catch (IOException e) {
 			logger.error("Exception", e);
@@ -137,6 +193,9 @@ public class Connection {
 	}
 
 	public void throwException(Agent agent, Exception e, Request request) {
+		if (isAlive && agent != null) {
+			Metrics.connectionLost(agent.name);
+		}
 		isAlive = false;
 		hasException = true;
 		exception = new LostAgentConnectionException(e, agent);
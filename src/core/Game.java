@@ -9,12 +9,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.LogManager;
@@ -28,6 +26,7 @@ import core.model.Config;
 import core.model.GameSetting;
 import core.model.Guard;
 import core.model.Judge;
+import core.model.Request;
 import core.model.Role;
 import core.model.Species;
 import core.model.Status;
@@ -46,7 +45,12 @@ public class Game {
 	private GameData gameData;
 	private RawFileLogger rawFileLogger;
 
-	private final Map<Integer, GameData> gameDataMap;
+	// 投票・襲撃投票の集計 (再投票のたびに再利用する)
+	private final VoteCounter voteCounter = new VoteCounter();
+	// ゲームの終了時にロールの組み合わせをファイルへ追記する
+	private boolean appendCombinations = true;
+	// ゲームの開始・完了をプロセス全体のメトリクスへ記録する
+	private boolean updateMetrics = true;
 
 	public Game(Config config, GameSetting gameSetting, GameServer gameServer, GameData gameData,
 			Map<Agent, Role> roleMap,
@@ -56,7 +60,6 @@ public class Game {
 		this.gameServer = gameServer;
 		this.gameData = gameData;
 		this.rawFileLogger = rawFileLogger;
-		this.gameDataMap = new TreeMap<>();
 
 		logger.info("Initialize game.");
 		gameServer.setGameData(gameData);
@@ -70,7 +73,7 @@ public class Game {
 		}
 
 		if (gameSetting.isEnableRoleRequest()) {
-			Collections.shuffle(agents);
+			Collections.shuffle(agents, ThreadLocalRandom.current());
 			Map<Role, List<Agent>> requestRoleAgents = new HashMap<>();
 			for (Role role : Role.values()) {
 				requestRoleAgents.put(role, new ArrayList<>());
@@ -110,10 +113,7 @@ public class Game {
 
 		gameServer.setAgents(agents);
 
-		gameDataMap.put(gameData.getDay(), gameData);
-		for (Agent agent : agents) {
-			gameServer.init(agent);
-		}
+		gameServer.broadcast(agents, Request.INITIALIZE);
 	}
 
 	private boolean existsCombinationsText(Config config, String text) {
@@ -136,7 +136,8 @@ public class Game {
 
 	private void appendCombinationsText(Config config, String text) {
 		File file = new File(config.combinationsLogFilename());
-		try (RawFileLogger rawFileLogger = new RawFileLogger(file)) {
+		// 次のゲームの重複の確認で読み込むため、非同期書き込みは使わない
+		try (RawFileLogger rawFileLogger = new RawFileLogger(file, false)) {
 			rawFileLogger.log(text);
 			rawFileLogger.flush();
 		} catch (IOException e) {
@@ -144,7 +145,18 @@ public class Game {
 		}
 	}
 
+	public void setAppendCombinations(boolean appendCombinations) {
+		this.appendCombinations = appendCombinations;
+	}
+
+	public void setUpdateMetrics(boolean updateMetrics) {
+		this.updateMetrics = updateMetrics;
+	}
+
 	public void start() {
+		if (updateMetrics) {
+			Metrics.gameStarted();
+		}
 		try {
 			while (!isFinished()) {
 				logGameData();
@@ -157,17 +169,27 @@ public class Game {
 			}
 			logGameData();
 
-			appendCombinationsText(config, getCombinationsText());
+			if (appendCombinations) {
+				appendCombinationsText(config, getCombinationsText());
+			}
 
 			finish();
+			if (updateMetrics) {
+				Metrics.gameCompleted();
+			}
 			logger.info("Finish game.");
 			logger.info(String.format("Winner: %s", getWinner()));
 		} catch (LostAgentConnectionException e) {
 			if (rawFileLogger != null) {
 				rawFileLogger.log("LostAgentConnectionException: " + e.agent);
-				rawFileLogger.flush();
+				// 非同期書き込みでファイルを開いたままにしないよう閉じる
+				rawFileLogger.close();
 			}
 			throw e;
+		} finally {
+			if (updateMetrics) {
+				Metrics.gameFinished();
+			}
 		}
 	}
 
@@ -189,33 +211,25 @@ public class Game {
 				rawFileLogger.log(String.format("%d,status,%d,%s,%s,%s", gameData.getDay(), agent.idx,
 						gameData.getRole(agent), gameData.getStatus(agent), agent.name));
 			}
-			rawFileLogger.log(String.format("%d,result,%d,%d,%s", gameData.getDay(), gameData.getAliveHumans().size(),
-					gameData.getAliveWolfs().size(), getWinner()));
+			rawFileLogger.log(String.format("%d,result,%d,%d,%s", gameData.getDay(), gameData.getAliveCount(Species.HUMAN),
+					gameData.getAliveCount(Species.WEREWOLF), getWinner()));
+			// エージェントごとの応答時間 (request,count,p50,p90,p99,max,timeout,forceSkip)
+			LatencyRecorder latencyRecorder = gameServer.getLatencyRecorder();
+			for (Agent agent : new TreeSet<>(gameData.getAgents())) {
+				for (String line : latencyRecorder.summarize(agent.name)) {
+					rawFileLogger.log(String.format("%d,latency,%d,%s", gameData.getDay(), agent.idx, line));
+				}
+			}
 			rawFileLogger.close();
 		}
-		for (Agent agent : gameData.getAgents()) {
-			gameServer.finish(agent);
-		}
+		gameServer.broadcast(gameData.getAgents(), Request.FINISH);
 	}
 
-	private Team getWinner() {
-		int humanSide = 0;
-		int wolfSide = 0;
-		int otherSide = 0;
-		for (Agent agent : gameData.getAgents()) {
-			if (gameData.getStatus(agent) == Status.DEAD) {
-				continue;
-			}
-
-			if (gameData.getRole(agent).team == Team.OTHERS) {
-				otherSide++;
-			}
-			if (gameData.getRole(agent).species == Species.HUMAN) {
-				humanSide++;
-			} else {
-				wolfSide++;
-			}
-		}
+	public Team getWinner() {
+		// 生存者数はGameDataが状態の変更時に更新する
+		int humanSide = gameData.getAliveCount(Species.HUMAN);
+		int wolfSide = gameData.getAliveCount() - humanSide;
+		int otherSide = gameData.getAliveCount(Team.OTHERS);
 		if (wolfSide == 0) {
 			if (otherSide > 0) {
 				return Team.OTHERS;
@@ -232,6 +246,10 @@ public class Game {
 	}
 
 	private void logGameData() {
+		// ログを出力しない場合は文字列の組み立てを省略する
+		if (!logger.isInfoEnabled()) {
+			return;
+		}
 		GameData yesterday = gameData.getDayBefore();
 		logger.info("### START GAME INFO ###");
 		if (yesterday != null) {
@@ -297,11 +315,11 @@ public class Game {
 			}
 			logger.info(logBuilder.toString());
 		}
-		logger.info(String.format("Human: %d", gameData.getAliveHumans().size()));
-		logger.info(String.format("Werewolf: %d", gameData.getAliveWolfs().size()));
+		logger.info(String.format("Human: %d", gameData.getAliveCount(Species.HUMAN)));
+		logger.info(String.format("Werewolf: %d", gameData.getAliveCount(Species.WEREWOLF)));
 		if (gameSetting.getRoleNum(Role.FOX) != 0) {
 			logger.info(String.format("Others: %d",
-					gameData.getAliveOthers().size()));
+					gameData.getAliveCount(Team.OTHERS)));
 		}
 		logger.info("### END GAME INFO ###");
 	}
@@ -319,9 +337,7 @@ public class Game {
 	}
 
 	private void night() {
-		for (Agent agent : gameData.getAgents()) {
-			gameServer.dayFinish(agent);
-		}
+		gameServer.broadcast(gameData.getAgents(), Request.DAILY_FINISH);
 		if (!gameSetting.isTalkOnFirstDay() && gameData.getDay() == 0) {
 			whisper();
 		}
@@ -337,7 +353,7 @@ public class Game {
 				}
 			}
 			if (executed == null) {
-				Collections.shuffle(candidates);
+				Collections.shuffle(candidates, ThreadLocalRandom.current());
 				executed = candidates.getFirst();
 			}
 			if (executed != null) {
@@ -353,17 +369,11 @@ public class Game {
 			whisper();
 			guard();
 			Agent attacked = null;
-			if (!gameData.getAliveWolfs().isEmpty()) {
+			if (gameData.getAliveCount(Species.WEREWOLF) > 0) {
 				for (int i = 0; i <= gameSetting.maxAttackRevote(); i++) {
 					attackVote();
+					gameData.removeAttackVotes(executed);
 					List<Vote> attackCandidateList = gameData.getAttackVotes();
-					Iterator<Vote> it = attackCandidateList.iterator();
-					while (it.hasNext()) {
-						Vote vote = it.next();
-						if (vote.agent() == executed) {
-							it.remove();
-						}
-					}
 					candidates = getAttackVotedCandidates(attackCandidateList);
 					if (candidates.size() == 1) {
 						attacked = candidates.getFirst();
@@ -371,7 +381,7 @@ public class Game {
 					}
 				}
 				if (attacked == null && !gameSetting.isEnableNoAttack()) {
-					Collections.shuffle(candidates);
+					Collections.shuffle(candidates, ThreadLocalRandom.current());
 					attacked = candidates.getFirst();
 				}
 				gameData.setAttackedTarget(attacked);
@@ -403,48 +413,34 @@ public class Game {
 			}
 		}
 		gameData = gameData.nextDay();
-		gameDataMap.put(gameData.getDay(), gameData);
 		gameServer.setGameData(gameData);
 	}
 
 	private List<Agent> getVotedCandidates(List<Vote> voteList) {
-		Counter<Agent> counter = new Counter<>();
+		// 同数の候補は最初に票を得た順に並べる (決選時のシャッフル前の順序)
+		voteCounter.clear();
 		for (Vote vote : voteList) {
 			if (gameData.getStatus(vote.target()) == Status.ALIVE) {
-				counter.add(vote.target());
-			}
-		}
-		int max = counter.get(counter.getLargest());
-		List<Agent> candidateList = new ArrayList<>();
-		for (Agent agent : counter) {
-			if (counter.get(agent) == max) {
-				candidateList.add(agent);
+				voteCounter.add(vote.target());
 			}
 		}
-		return candidateList;
+		return voteCounter.getLargestList();
 	}
 
 	private List<Agent> getAttackVotedCandidates(List<Vote> voteList) {
-		Counter<Agent> counter = new Counter<>();
+		voteCounter.clear();
 		for (Vote vote : voteList) {
 			if (gameData.getStatus(vote.target()) == Status.ALIVE
 					&& gameData.getRole(vote.target()) != Role.WEREWOLF) {
-				counter.add(vote.target());
+				voteCounter.add(vote.target());
 			}
 		}
 		if (!gameSetting.isEnableNoAttack()) {
 			for (Agent agent : gameData.getAliveHumans()) {
-				counter.add(agent);
+				voteCounter.add(agent);
 			}
 		}
-		int max = counter.get(counter.getLargest());
-		List<Agent> candidateList = new ArrayList<>();
-		for (Agent agent : counter) {
-			if (counter.get(agent) == max) {
-				candidateList.add(agent);
-			}
-		}
-		return candidateList;
+		return voteCounter.getLargestList();
 	}
 
 	private void dayStart() {
@@ -454,7 +450,7 @@ public class Game {
 						gameData.getRole(agent), gameData.getStatus(agent), agent.name));
 			}
 		}
-		gameData.getAgents().forEach(gameServer::dayStart);
+		gameServer.broadcast(gameData.getAgents(), Request.DAILY_INITIALIZE);
 	}
 
 	private void talk() {
@@ -462,11 +458,11 @@ public class Game {
 		Counter<Agent> skipCounter = new Counter<>();
 		for (int time = 0; time < gameSetting.maxTalkTurn(); time++) {
 			List<Agent> aliveAgents = new ArrayList<>(gameData.getAliveAgents());
-			Collections.shuffle(aliveAgents);
+			Collections.shuffle(aliveAgents, ThreadLocalRandom.current());
 			boolean continueTalk = false;
 			for (Agent agent : aliveAgents) {
 				String talkText = Talk.OVER;
-				if (gameData.getRemainTalkMap().get(agent) > 0) {
+				if (gameData.getRemainTalk(agent) > 0) {
 					talkText = gameServer.requestTalk(agent);
 				}
 				if (talkText == null || talkText.isEmpty()) {
@@ -506,11 +502,11 @@ public class Game {
 		Counter<Agent> skipCounter = new Counter<>();
 		for (int turn = 0; turn < gameSetting.maxWhisperTurn(); turn++) {
 			List<Agent> aliveWolfs = new ArrayList<>(gameData.getAliveWolfs());
-			Collections.shuffle(aliveWolfs);
+			Collections.shuffle(aliveWolfs, ThreadLocalRandom.current());
 			boolean continueWhisper = false;
 			for (Agent agent : aliveWolfs) {
 				String whisperText = Talk.OVER;
-				if (gameData.getRemainWhisperMap().get(agent) > 0) {
+				if (gameData.getRemainWhisper(agent) > 0) {
 					whisperText = gameServer.requestWhisper(agent);
 				}
 				if (whisperText == null || whisperText.isEmpty()) {
@@ -542,11 +538,12 @@ public class Game {
 	}
 
 	private void vote() {
-		gameData.getVotes().clear();
+		gameData.clearVotes();
 		List<Agent> voters = gameData.getAliveAgents();
 		List<Vote> latestVoteList = new ArrayList<>();
+		Map<Agent, Agent> targets = gameServer.requestVotes(voters);
 		for (Agent agent : voters) {
-			Agent target = gameServer.requestVote(agent);
+			Agent target = targets.get(agent);
 			if (target == null || gameData.getStatus(target) == null || gameData.getStatus(target) == Status.DEAD
 					|| agent == target) {
 				target = getRandomAgent(voters, agent);
@@ -563,52 +560,53 @@ public class Game {
 	}
 
 	private void divine() {
-		for (Agent agent : gameData.getAliveAgents()) {
-			if (gameData.getRole(agent) == Role.SEER) {
-				Agent target = gameServer.requestDivineTarget(agent);
-				Role targetRole = gameData.getRole(target);
-				if (gameData.getStatus(target) == Status.DEAD || target == null || targetRole == null) {
-				} else {
-					Judge divine = new Judge(gameData.getDay(), agent, target, targetRole.species);
-					gameData.setDivine(divine);
-					if (gameData.getRole(target) == Role.FOX) {
-						gameData.addLastDeadAgent(target);
-						gameData.setCursedFox(target);
-					}
-					if (rawFileLogger != null) {
-						rawFileLogger.log(String.format("%d,divine,%d,%d,%s", gameData.getDay(),
-								divine.agent().idx, divine.target().idx, divine.result()));
-					}
+		List<Agent> seers = gameData.getAliveAgents(Role.SEER);
+		Map<Agent, Agent> targets = gameServer.requestDivineTargets(seers);
+		for (Agent agent : seers) {
+			Agent target = targets.get(agent);
+			Role targetRole = gameData.getRole(target);
+			if (gameData.getStatus(target) == Status.DEAD || target == null || targetRole == null) {
+			} else {
+				Judge divine = new Judge(gameData.getDay(), agent, target, targetRole.species);
+				gameData.setDivine(divine);
+				if (gameData.getRole(target) == Role.FOX) {
+					gameData.addLastDeadAgent(target);
+					gameData.setCursedFox(target);
+				}
+				if (rawFileLogger != null) {
+					rawFileLogger.log(String.format("%d,divine,%d,%d,%s", gameData.getDay(),
+							divine.agent().idx, divine.target().idx, divine.result()));
 				}
 			}
 		}
 	}
 
 	private void guard() {
-		for (Agent agent : gameData.getAliveAgents()) {
-			if (gameData.getRole(agent) == Role.BODYGUARD) {
-				if (agent == gameData.getExecuted()) {
-					continue;
-				}
-				Agent target = gameServer.requestGuardTarget(agent);
-				if (target == null || gameData.getStatus(target) == null || agent == target) {
-				} else {
-					Guard guard = new Guard(gameData.getDay(), agent, target);
-					gameData.setGuard(guard);
-					if (rawFileLogger != null) {
-						rawFileLogger.log(
-								String.format("%d,guard,%d,%d,%s", gameData.getDay(), guard.agent().idx,
-										guard.target().idx, gameData.getRole(guard.target())));
-					}
+		List<Agent> bodyguards = gameData.getAliveAgents(Role.BODYGUARD).stream()
+				.filter(agent -> agent != gameData.getExecuted())
+				.collect(Collectors.toList());
+		Map<Agent, Agent> targets = gameServer.requestGuardTargets(bodyguards);
+		for (Agent agent : bodyguards) {
+			Agent target = targets.get(agent);
+			if (target == null || gameData.getStatus(target) == null || agent == target) {
+			} else {
+				Guard guard = new Guard(gameData.getDay(), agent, target);
+				gameData.setGuard(guard);
+				if (rawFileLogger != null) {
+					rawFileLogger.log(
+							String.format("%d,guard,%d,%d,%s", gameData.getDay(), guard.agent().idx,
+									guard.target().idx, gameData.getRole(guard.target())));
 				}
 			}
 		}
 	}
 
 	private void attackVote() {
-		gameData.getAttackVotes().clear();
-		for (Agent agent : gameData.getAliveWolfs()) {
-			Agent target = gameServer.requestAttackTarget(agent);
+		gameData.clearAttackVotes();
+		List<Agent> wolves = gameData.getAliveWolfs();
+		Map<Agent, Agent> targets = gameServer.requestAttackTargets(wolves);
+		for (Agent agent : wolves) {
+			Agent target = targets.get(agent);
 			if (target == null || gameData.getStatus(target) == null || gameData.getStatus(target) == Status.DEAD
 					|| gameData.getRole(target) == Role.WEREWOLF) {
 			} else {
@@ -627,7 +625,7 @@ public class Game {
 	private Agent getRandomAgent(List<Agent> agentList, Agent... without) {
 		List<Agent> list = new ArrayList<>(agentList);
 		list.removeAll(Arrays.asList(without));
-		return list.get(new Random().nextInt(list.size()));
+		return list.get(ThreadLocalRandom.current().nextInt(list.size()));
 	}
 
 	private boolean isFinished() {
@@ -1,12 +1,21 @@
 package core;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 import core.exception.AIWolfException;
 import core.model.Agent;
@@ -18,21 +27,28 @@ import core.model.Role;
 import core.model.Species;
 import core.model.Status;
 import core.model.Talk;
+import core.model.TalkLog;
 import core.model.Team;
 import core.model.Vote;
 
 public class GameData {
+	private static final Role[] ROLES = Role.values();
+	private static final Status[] STATUSES = Status.values();
+	// 配列で未登録を表す値
+	private static final byte ABSENT = -1;
+
 	private int day;
-	private Map<Agent, Status> agentStatusMap = new LinkedHashMap<>();
-	private Map<Agent, Role> agentRoleMap = new HashMap<>();
-	private final List<Talk> talkList = new ArrayList<>();
-	private final List<Talk> whisperList = new ArrayList<>();
+	// エージェント番号をインデックスとする状態 (Statusの序数) と残りの発話・囁き回数
+	private byte[] statuses = new byte[0];
+	private int[] remainTalks = new int[0];
+	private int[] remainWhispers = new int[0];
+	// 発話は追加時にエンコードし、送信先ごとのシリアライズを省く (囁きは人狼のみ閲覧できる)
+	private final TalkLog talkList = new TalkLog();
+	private final TalkLog whisperList = new TalkLog(agent -> getRole(agent) == Role.WEREWOLF);
 	private final List<Vote> voteList = new ArrayList<>();
 	private List<Vote> latestVoteList = new ArrayList<>();
 	private final List<Vote> attackVoteList = new ArrayList<>();
 	private List<Vote> latestAttackVoteList = new ArrayList<>();
-	private final Map<Agent, Integer> remainTalkMap = new HashMap<>();
-	private final Map<Agent, Integer> remainWhisperMap = new HashMap<>();
 	private Judge divine;
 	private Guard guard;
 	private Agent executed;
@@ -40,9 +56,154 @@ public class GameData {
 	private Agent attacked;
 	private Agent cursedFox;
 	private final List<Agent> lastDeadAgentList = new ArrayList<>();
+	// 規則上参照するのは前日のみのため、前日より前のGameDataへの参照は保持しない
 	private GameData dayBefore;
 	private int talkIdx;
 	private int whisperIdx;
+	// 状態を変更するたびに加算し、GameInfoのキャッシュを無効化する
+	private int version;
+	private int cachedVersion = -1;
+	private final Map<Role, GameInfo> viewCache = new HashMap<>();
+	private final Map<Agent, GameInfo> gameInfoCache = new HashMap<>();
+	// 役職は日を跨いでも変化しないため翌日のGameDataと共有する
+	private List<Role> existingRoleList;
+	private Map<Role, Map<Agent, Role>> teamRoleMapCache = new HashMap<>();
+	// エージェント番号をビットの位置とする生存者の集合と役職ごとの生存者数 (状態の変更時に更新する)
+	private BitSet aliveSet = new BitSet();
+	private int[] aliveRoleCounts = new int[Role.values().length];
+	// 状態と生存者の索引を前日と共有しているか (変更時に複製する)
+	private boolean isStatusShared = false;
+	// 役職・種族・陣営ごとのエージェントの集合 (翌日のGameDataと共有する)
+	private AgentIndex agentIndex = new AgentIndex();
+	// 生存者のリスト (生存者が変化するまで同じリストを返す)
+	private List<Agent> aliveAgents;
+	private Map<Enum<?>, List<Agent>> aliveAgentsCache = new HashMap<>();
+	// GameInfoに渡す配列のビュー (初回の参照時に作成する)
+	private Map<Agent, Status> statusView;
+	private Map<Agent, Role> roleView;
+	private Map<Agent, Integer> remainTalkView;
+	private Map<Agent, Integer> remainWhisperView;
+
+	private static class AgentIndex {
+		private Agent[] agents = new Agent[0];
+		// エージェント番号をインデックスとする役職 (Roleの序数)
+		private byte[] roles = new byte[0];
+		private final Map<Role, BitSet> roleSets = new EnumMap<>(Role.class);
+		private final Map<Species, BitSet> speciesSets = new EnumMap<>(Species.class);
+		private final Map<Team, BitSet> teamSets = new EnumMap<>(Team.class);
+
+		private void add(Agent agent, Role role) {
+			if (agent.idx >= agents.length) {
+				agents = Arrays.copyOf(agents, agent.idx + 1);
+				roles = grow(roles, agent.idx + 1);
+			}
+			agents[agent.idx] = agent;
+			roles[agent.idx] = (byte) role.ordinal();
+			roleSets.computeIfAbsent(role, key -> new BitSet()).set(agent.idx);
+			speciesSets.computeIfAbsent(role.species, key -> new BitSet()).set(agent.idx);
+			teamSets.computeIfAbsent(role.team, key -> new BitSet()).set(agent.idx);
+		}
+
+		private BitSet get(Enum<?> key) {
+			BitSet set = switch (key) {
+				case Role role -> roleSets.get(role);
+				case Species species -> speciesSets.get(species);
+				case Team team -> teamSets.get(team);
+				default -> throw new IllegalArgumentException(String.valueOf(key));
+			};
+			return set == null ? new BitSet() : set;
+		}
+	}
+
+	/**
+	 * エージェント番号をインデックスとする配列をMapとして参照するビュー (GameInfoとJSONの出力用、変更不可)。
+	 * 値がnullのエージェントは含まず、エージェント番号順に列挙する。
+	 */
+	private abstract class ArrayView<V> extends AbstractMap<Agent, V> {
+		abstract V getAt(int idx);
+
+		@Override
+		public V get(Object key) {
+			if (key instanceof Agent agent && agent.idx >= 0 && agent.idx < agentIndex.agents.length) {
+				return getAt(agent.idx);
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public void forEach(BiConsumer<? super Agent, ? super V> action) {
+			for (int idx = find(0); idx < agentIndex.agents.length; idx = find(idx + 1)) {
+				action.accept(agentIndex.agents[idx], getAt(idx));
+			}
+		}
+
+		@Override
+		public Set<Entry<Agent, V>> entrySet() {
+			return new AbstractSet<>() {
+				@Override
+				public Iterator<Entry<Agent, V>> iterator() {
+					return new Iterator<>() {
+						private int next = find(0);
+
+						@Override
+						public boolean hasNext() {
+							return next < agentIndex.agents.length;
+						}
+
+						@Override
+						public Entry<Agent, V> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							int idx = next;
+							next = find(idx + 1);
+							return new SimpleImmutableEntry<>(agentIndex.agents[idx], getAt(idx));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					int size = 0;
+					for (int idx = find(0); idx < agentIndex.agents.length; idx = find(idx + 1)) {
+						size++;
+					}
+					return size;
+				}
+			};
+		}
+
+		private int find(int from) {
+			int idx = from;
+			while (idx < agentIndex.agents.length && (agentIndex.agents[idx] == null || getAt(idx) == null)) {
+				idx++;
+			}
+			return idx;
+		}
+	}
+
+	private static byte[] grow(byte[] array, int length) {
+		byte[] grown = Arrays.copyOf(array, length);
+		Arrays.fill(grown, array.length, length, ABSENT);
+		return grown;
+	}
+
+	private static int[] grow(int[] array, int length) {
+		int[] grown = Arrays.copyOf(array, length);
+		Arrays.fill(grown, array.length, length, ABSENT);
+		return grown;
+	}
+
+	private static int[] newAbsentArray(int length) {
+		int[] array = new int[length];
+		Arrays.fill(array, ABSENT);
+		return array;
+	}
 
 	private final GameSetting gameSetting;
 
@@ -51,9 +212,57 @@ public class GameData {
 	}
 
 	public GameInfo getGameInfo(Agent agent) {
-		GameData today = this;
-		GameInfo gameInfo = new GameInfo(today.day, agent);
+		// 状態が変化していなければ同じエージェントには前回作成したGameInfoを返す
+		if (cachedVersion != version) {
+			viewCache.clear();
+			gameInfoCache.clear();
+			cachedVersion = version;
+		}
+		GameInfo gameInfo = gameInfoCache.get(agent);
+		if (gameInfo == null) {
+			gameInfo = createGameInfo(agent);
+			gameInfoCache.put(agent, gameInfo);
+		}
+		return gameInfo;
+	}
+
+	private GameInfo createGameInfo(Agent agent) {
 		Role role = getRole(agent);
+		// 役職ごとに見える情報が同じエージェントは共通のビューを使う
+		Role visibility = agent == null ? null : getVisibility(role);
+		GameInfo view = viewCache.get(visibility);
+		if (view == null) {
+			view = createView(visibility, agent == null);
+			viewCache.put(visibility, view);
+		}
+		GameInfo gameInfo = new GameInfo(view, agent);
+
+		GameData yesterday = getDayBefore();
+		if (yesterday != null && role == Role.MEDIUM && executed != null) {
+			gameInfo.mediumResult = new Judge(day, agent, executed, yesterday.getRole(executed).species);
+		}
+
+		Map<Agent, Role> roleMap = new LinkedHashMap<>();
+		if (role != null) {
+			roleMap.put(agent, role);
+			if (role == Role.WEREWOLF || role == Role.FREEMASON) {
+				roleMap.putAll(getTeamRoleMap(role));
+			}
+		}
+		gameInfo.roleMap = roleMap;
+		return gameInfo;
+	}
+
+	private static Role getVisibility(Role role) {
+		if (role == Role.WEREWOLF || role == Role.SEER || role == Role.BODYGUARD) {
+			return role;
+		}
+		return Role.VILLAGER;
+	}
+
+	private GameInfo createView(Role visibility, boolean isAll) {
+		GameData today = this;
+		GameInfo gameInfo = new GameInfo(today.day, null);
 
 		if (gameSetting.isVoteVisible()) {
 			gameInfo.latestVoteList = latestVoteList;
@@ -61,7 +270,7 @@ public class GameData {
 		if (executed != null) {
 			gameInfo.latestExecutedAgent = executed;
 		}
-		if (agent == null || role == Role.WEREWOLF) {
+		if (isAll || visibility == Role.WEREWOLF) {
 			gameInfo.latestAttackVoteList = latestAttackVoteList;
 		}
 
@@ -74,128 +283,183 @@ public class GameData {
 			if (gameSetting.isVoteVisible()) {
 				gameInfo.voteList = yesterday.voteList;
 			}
-			if (agent != null && today.getRole(agent) == Role.MEDIUM && executed != null) {
-				gameInfo.mediumResult = new Judge(day, agent, executed, yesterday.getRole(executed).species);
-			}
-			if (agent == null || today.getRole(agent) == Role.SEER) {
+			if (isAll || visibility == Role.SEER) {
 				Judge divine = yesterday.divine;
 				if (divine != null && divine.target() != null) {
 					gameInfo.divineResult = new Judge(day, divine.agent(), divine.target(),
 							yesterday.getRole(divine.target()).species);
 				}
 			}
-			if (agent == null || today.getRole(agent) == Role.WEREWOLF) {
+			if (isAll || visibility == Role.WEREWOLF) {
 				if (yesterday.attacked != null) {
 					gameInfo.attackedAgent = yesterday.attacked;
 				}
 				gameInfo.attackVoteList = yesterday.attackVoteList;
 			}
-			if (agent == null || today.getRole(agent) == Role.BODYGUARD) {
+			if (isAll || visibility == Role.BODYGUARD) {
 				if (yesterday.guard != null) {
 					gameInfo.guardedAgent = yesterday.guard.target();
 				}
 			}
-			if (agent == null) {
+			if (isAll) {
 				if (yesterday.cursedFox != null) {
 					gameInfo.cursedFox = yesterday.cursedFox;
 				}
 			}
 		}
 		gameInfo.talkList = today.talkList;
-		gameInfo.statusMap = agentStatusMap;
-		gameInfo.existingRoleList = new ArrayList<>(new TreeSet<>(agentRoleMap.values()));
-		gameInfo.remainTalkMap = remainTalkMap;
-		gameInfo.remainWhisperMap = remainWhisperMap;
+		gameInfo.statusMap = getStatusMap();
+		gameInfo.existingRoleList = getExistingRoleList();
+		gameInfo.remainTalkMap = getRemainTalkMap();
+		gameInfo.remainWhisperMap = getRemainWhisperMap();
 
-		if (role == Role.WEREWOLF || agent == null) {
+		if (isAll || visibility == Role.WEREWOLF) {
 			gameInfo.whisperList = today.whisperList;
 		}
+		return gameInfo;
+	}
 
-		Map<Agent, Role> roleMap = new LinkedHashMap<>();
-		if (role != null) {
-			roleMap.put(agent, role);
-			if (today.getRole(agent) == Role.WEREWOLF) {
-				for (Agent target : today.getAgents()) {
-					if (today.getRole(target) == Role.WEREWOLF) {
-						roleMap.put(target, Role.WEREWOLF);
-					}
-				}
+	private List<Role> getExistingRoleList() {
+		if (existingRoleList == null) {
+			TreeSet<Role> roles = new TreeSet<>();
+			for (Agent agent : getAgents()) {
+				roles.add(getRole(agent));
 			}
-			if (today.getRole(agent) == Role.FREEMASON) {
-				for (Agent target : today.getAgents()) {
-					if (today.getRole(target) == Role.FREEMASON) {
-						roleMap.put(target, Role.FREEMASON);
-					}
+			existingRoleList = Collections.unmodifiableList(new ArrayList<>(roles));
+		}
+		return existingRoleList;
+	}
+
+	private Map<Agent, Role> getTeamRoleMap(Role role) {
+		return teamRoleMapCache.computeIfAbsent(role, r -> {
+			Map<Agent, Role> roleMap = new LinkedHashMap<>();
+			for (Agent target : getAgents()) {
+				if (getRole(target) == r) {
+					roleMap.put(target, r);
 				}
 			}
-		}
-		gameInfo.roleMap = roleMap;
-		gameInfo.remainTalkMap = remainTalkMap;
-		return gameInfo;
+			return roleMap;
+		});
 	}
 
 	public GameInfo getFinalGameInfo(Agent agent) {
-		GameInfo gameInfo = getGameInfo(agent);
-		gameInfo.roleMap = agentRoleMap;
+		// キャッシュされたGameInfoは共有されるため複製してから役職を公開する
+		GameInfo gameInfo = new GameInfo(getGameInfo(agent), agent);
+		gameInfo.roleMap = getRoleMap();
 		return gameInfo;
 	}
 
 	public void addAgent(Agent agent, Status status, Role role) {
-		agentRoleMap.put(agent, role);
-		agentStatusMap.put(agent, status);
-		remainTalkMap.put(agent, gameSetting.maxTalk());
-		if (getRole(agent) == Role.WEREWOLF) {
-			remainWhisperMap.put(agent, gameSetting.maxWhisper());
+		version++;
+		existingRoleList = null;
+		teamRoleMapCache.clear();
+		agentIndex.add(agent, role);
+		if (statuses.length < agentIndex.agents.length) {
+			statuses = grow(statuses, agentIndex.agents.length);
+			remainTalks = grow(remainTalks, agentIndex.agents.length);
+			remainWhispers = grow(remainWhispers, agentIndex.agents.length);
+		}
+		setStatus(agent, status);
+		remainTalks[agent.idx] = gameSetting.maxTalk();
+		if (role == Role.WEREWOLF) {
+			remainWhispers[agent.idx] = gameSetting.maxWhisper();
 		}
 	}
 
+	// エージェント番号順
 	public List<Agent> getAgents() {
-		return new ArrayList<>(agentRoleMap.keySet());
+		List<Agent> list = new ArrayList<>();
+		for (Agent agent : agentIndex.agents) {
+			if (agent != null) {
+				list.add(agent);
+			}
+		}
+		return list;
+	}
+
+	private static boolean isIndexed(Agent agent, int length) {
+		return agent != null && agent.idx >= 0 && agent.idx < length;
 	}
 
 	public Status getStatus(Agent agent) {
-		return agentStatusMap.get(agent);
+		if (!isIndexed(agent, statuses.length) || statuses[agent.idx] == ABSENT) {
+			return null;
+		}
+		return STATUSES[statuses[agent.idx]];
 	}
 
 	public Role getRole(Agent agent) {
-		return agentRoleMap.get(agent);
+		byte[] roles = agentIndex.roles;
+		if (!isIndexed(agent, roles.length) || roles[agent.idx] == ABSENT) {
+			return null;
+		}
+		return ROLES[roles[agent.idx]];
+	}
+
+	private void setStatus(Agent agent, Status status) {
+		Status previous = getStatus(agent);
+		if (previous == status) {
+			return;
+		}
+		if (isStatusShared) {
+			statuses = statuses.clone();
+			aliveSet = (BitSet) aliveSet.clone();
+			aliveRoleCounts = aliveRoleCounts.clone();
+			aliveAgentsCache = new HashMap<>();
+			isStatusShared = false;
+		}
+		statuses[agent.idx] = (byte) status.ordinal();
+		Role role = getRole(agent);
+		if (status == Status.ALIVE) {
+			aliveSet.set(agent.idx);
+			aliveRoleCounts[role.ordinal()]++;
+		} else if (previous == Status.ALIVE) {
+			aliveSet.clear(agent.idx);
+			aliveRoleCounts[role.ordinal()]--;
+		}
+		aliveAgents = null;
+		aliveAgentsCache.clear();
 	}
 
 	public void addTalk(Agent agent, Talk talk) {
-		int remainTalk = remainTalkMap.get(agent);
 		if (!talk.isOver() && !talk.isSkip()) {
-			if (remainTalk == 0) {
+			if (getRemainTalk(agent) == 0) {
 				throw new AIWolfException("Over the talk limit.");
 			}
-			remainTalkMap.put(agent, remainTalk - 1);
+			remainTalks[agent.idx]--;
 		}
 		talkList.add(talk);
+		version++;
 	}
 
 	public void addWhisper(Agent agent, Talk whisper) {
-		int remainWhisper = remainWhisperMap.get(agent);
 		if (!whisper.isOver() && !whisper.isSkip()) {
-			if (remainWhisper == 0) {
+			if (getRemainWhisper(agent) == 0) {
 				throw new AIWolfException("Over the whisper limit.");
 			}
-			remainWhisperMap.put(agent, remainWhisper - 1);
+			remainWhispers[agent.idx]--;
 		}
 		whisperList.add(whisper);
+		version++;
 	}
 
 	public void addVote(Vote vote) {
+		version++;
 		voteList.add(vote);
 	}
 
 	public void setDivine(Judge divine) {
+		version++;
 		this.divine = divine;
 	}
 
 	public void setGuard(Guard guard) {
+		version++;
 		this.guard = guard;
 	}
 
 	public void addAttack(Vote attack) {
+		version++;
 		attackVoteList.add(attack);
 	}
 
@@ -203,14 +467,21 @@ public class GameData {
 		return voteList;
 	}
 
+	public void clearVotes() {
+		version++;
+		voteList.clear();
+	}
+
 	public void setExecutedTarget(Agent executed) {
+		version++;
 		this.executed = executed;
 		if (executed != null) {
-			agentStatusMap.put(executed, Status.DEAD);
+			setStatus(executed, Status.DEAD);
 		}
 	}
 
 	public void setAttackedTarget(Agent attacked) {
+		version++;
 		this.attacked = attacked;
 	}
 
@@ -218,6 +489,16 @@ public class GameData {
 		return attackVoteList;
 	}
 
+	public void clearAttackVotes() {
+		version++;
+		attackVoteList.clear();
+	}
+
+	public void removeAttackVotes(Agent agent) {
+		version++;
+		attackVoteList.removeIf(vote -> vote.agent() == agent);
+	}
+
 	public Guard getGuard() {
 		return guard;
 	}
@@ -226,11 +507,11 @@ public class GameData {
 		return day;
 	}
 
-	public List<Talk> getTalkList() {
+	public TalkLog getTalkList() {
 		return talkList;
 	}
 
-	public List<Talk> getWhisperList() {
+	public TalkLog getWhisperList() {
 		return whisperList;
 	}
 
@@ -243,40 +524,106 @@ public class GameData {
 	}
 
 	public void addLastDeadAgent(Agent agent) {
+		version++;
 		if (!lastDeadAgentList.contains(agent)) {
 			lastDeadAgentList.add(agent);
 		}
 	}
 
+	// 発話できないエージェントは0を返す
+	public int getRemainTalk(Agent agent) {
+		return isIndexed(agent, remainTalks.length) ? Math.max(remainTalks[agent.idx], 0) : 0;
+	}
+
+	public int getRemainWhisper(Agent agent) {
+		return isIndexed(agent, remainWhispers.length) ? Math.max(remainWhispers[agent.idx], 0) : 0;
+	}
+
+	public Map<Agent, Status> getStatusMap() {
+		if (statusView == null) {
+			statusView = new ArrayView<>() {
+				@Override
+				Status getAt(int idx) {
+					return idx < statuses.length && statuses[idx] != ABSENT ? STATUSES[statuses[idx]] : null;
+				}
+			};
+		}
+		return statusView;
+	}
+
+	public Map<Agent, Role> getRoleMap() {
+		if (roleView == null) {
+			roleView = new ArrayView<>() {
+				@Override
+				Role getAt(int idx) {
+					byte[] roles = agentIndex.roles;
+					return idx < roles.length && roles[idx] != ABSENT ? ROLES[roles[idx]] : null;
+				}
+			};
+		}
+		return roleView;
+	}
+
 	public Map<Agent, Integer> getRemainTalkMap() {
-		return remainTalkMap;
+		if (remainTalkView == null) {
+			remainTalkView = new ArrayView<>() {
+				@Override
+				Integer getAt(int idx) {
+					return idx < remainTalks.length && remainTalks[idx] != ABSENT ? remainTalks[idx] : null;
+				}
+			};
+		}
+		return remainTalkView;
 	}
 
 	public Map<Agent, Integer> getRemainWhisperMap() {
-		return remainWhisperMap;
+		if (remainWhisperView == null) {
+			remainWhisperView = new ArrayView<>() {
+				@Override
+				Integer getAt(int idx) {
+					return idx < remainWhispers.length && remainWhispers[idx] != ABSENT ? remainWhispers[idx] : null;
+				}
+			};
+		}
+		return remainWhisperView;
 	}
 
 	public GameData nextDay() {
 		GameData gameData = new GameData(gameSetting);
 
 		gameData.day = this.day + 1;
-		gameData.agentStatusMap = new HashMap<>(agentStatusMap);
+		// 役職は共有し、状態と生存者の索引は死亡者が出るまで前日と共有する
+		gameData.existingRoleList = existingRoleList;
+		gameData.teamRoleMapCache = teamRoleMapCache;
+		gameData.agentIndex = agentIndex;
+		gameData.statuses = statuses;
+		gameData.aliveSet = aliveSet;
+		gameData.aliveRoleCounts = aliveRoleCounts;
+		gameData.aliveAgents = aliveAgents;
+		gameData.aliveAgentsCache = aliveAgentsCache;
+		gameData.isStatusShared = true;
+		isStatusShared = true;
+		gameData.remainTalks = newAbsentArray(statuses.length);
+		gameData.remainWhispers = newAbsentArray(statuses.length);
 
 		for (Agent agent : lastDeadAgentList) {
-			gameData.agentStatusMap.put(agent, Status.DEAD);
+			gameData.setStatus(agent, Status.DEAD);
 		}
-		gameData.agentRoleMap = new HashMap<>(agentRoleMap);
 
-		for (Agent agent : gameData.getAgents()) {
-			if (gameData.getStatus(agent) == Status.ALIVE) {
-				gameData.remainTalkMap.put(agent, gameSetting.maxTalk());
-				if (gameData.getRole(agent) == Role.WEREWOLF) {
-					gameData.remainWhisperMap.put(agent, gameSetting.maxWhisper());
-				}
+		for (Agent agent : gameData.getAliveAgents()) {
+			gameData.remainTalks[agent.idx] = gameSetting.maxTalk();
+			if (gameData.getRole(agent) == Role.WEREWOLF) {
+				gameData.remainWhispers[agent.idx] = gameSetting.maxWhisper();
 			}
 		}
 
 		gameData.dayBefore = this;
+		// 翌日から参照されるのはこの日の結果のみのため、前日とそれを参照するGameInfoのキャッシュを手放す
+		// (各日の発話や投票はゲームログに出力済み)
+		dayBefore = null;
+		viewCache.clear();
+		gameInfoCache.clear();
+		cachedVersion = -1;
 		return gameData;
 	}
 
@@ -284,24 +631,6 @@ public class GameData {
 		return dayBefore;
 	}
 
-	private List<Agent> getFilteredAgents(List<Agent> agentList, Species species) {
-		return agentList.stream()
-				.filter(agent -> getRole(agent).species == species)
-				.collect(Collectors.toList());
-	}
-
-	private List<Agent> getFilteredAgents(List<Agent> agentList, Role role) {
-		return agentList.stream()
-				.filter(agent -> getRole(agent) == role)
-				.collect(Collectors.toList());
-	}
-
-	private List<Agent> getFilteredAgents(List<Agent> agentList, Team team) {
-		return agentList.stream()
-				.filter(agent -> getRole(agent).team == team)
-				.collect(Collectors.toList());
-	}
-
 	public int nextTalkIdx() {
 		return talkIdx++;
 	}
@@ -315,6 +644,7 @@ public class GameData {
 	}
 
 	public void setAttackedDead(Agent attackedDead) {
+		version++;
 		this.attackedDead = attackedDead;
 	}
 
@@ -323,6 +653,7 @@ public class GameData {
 	}
 
 	public void setCursedFox(Agent cursedFox) {
+		version++;
 		this.cursedFox = cursedFox;
 	}
 
@@ -331,6 +662,7 @@ public class GameData {
 	}
 
 	public void setLatestVoteList(List<Vote> latestVoteList) {
+		version++;
 		this.latestVoteList = latestVoteList;
 	}
 
@@ -339,36 +671,91 @@ public class GameData {
 	}
 
 	public void setLatestAttackVoteList(List<Vote> latestAttackVoteList) {
+		version++;
 		this.latestAttackVoteList = latestAttackVoteList;
 	}
 
+	// 返すリストは変更できず、生存者が変化するまで同じインスタンスを返す (エージェント番号順)
 	public List<Agent> getAliveAgents() {
-		return agentStatusMap.entrySet().stream()
-				.filter(entry -> entry.getValue() == Status.ALIVE)
-				.map(Map.Entry::getKey)
-				.collect(Collectors.toList());
+		if (aliveAgents == null) {
+			aliveAgents = toList(aliveSet, null);
+		}
+		return aliveAgents;
+	}
+
+	public List<Agent> getAliveAgents(Role role) {
+		return getFilteredAliveAgents(role);
 	}
 
 	public List<Agent> getAliveHumans() {
-		return getFilteredAgents(getAliveAgents(), Species.HUMAN);
+		return getFilteredAliveAgents(Species.HUMAN);
 	}
 
 	public List<Agent> getAliveWolfs() {
-		return getFilteredAgents(getAliveAgents(), Species.WEREWOLF);
+		return getFilteredAliveAgents(Species.WEREWOLF);
 	}
 
 	public List<Agent> getAliveOthers() {
-		return getFilteredAgents(getAliveAgents(), Team.OTHERS);
+		return getFilteredAliveAgents(Team.OTHERS);
+	}
+
+	private List<Agent> getFilteredAliveAgents(Enum<?> key) {
+		List<Agent> list = aliveAgentsCache.get(key);
+		if (list == null) {
+			list = toList(aliveSet, agentIndex.get(key));
+			aliveAgentsCache.put(key, list);
+		}
+		return list;
+	}
+
+	private List<Agent> toList(BitSet set, BitSet mask) {
+		List<Agent> list = new ArrayList<>(set.cardinality());
+		for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+			if (mask == null || mask.get(i)) {
+				list.add(agentIndex.agents[i]);
+			}
+		}
+		return Collections.unmodifiableList(list);
+	}
+
+	public int getAliveCount() {
+		return aliveSet.cardinality();
+	}
+
+	public int getAliveCount(Role role) {
+		return aliveRoleCounts[role.ordinal()];
+	}
+
+	public int getAliveCount(Species species) {
+		int count = 0;
+		for (Role role : Role.values()) {
+			if (role.species == species) {
+				count += aliveRoleCounts[role.ordinal()];
+			}
+		}
+		return count;
+	}
+
+	public int getAliveCount(Team team) {
+		int count = 0;
+		for (Role role : Role.values()) {
+			if (role.team == team) {
+				count += aliveRoleCounts[role.ordinal()];
+			}
+		}
+		return count;
 	}
 
 	public void resetRemainTalkMap() {
-		getAliveAgents().forEach(agent -> remainTalkMap.put(agent, gameSetting.maxTalk()));
+		version++;
+		getAliveAgents().forEach(agent -> remainTalks[agent.idx] = gameSetting.maxTalk());
 	}
 
 	public boolean resetRemainWhisperMap() {
-		List<Agent> aliveWolfList = getFilteredAgents(getAliveAgents(), Role.WEREWOLF);
+		version++;
+		List<Agent> aliveWolfList = getAliveAgents(Role.WEREWOLF);
 		if (aliveWolfList.size() > 1) {
-			aliveWolfList.forEach(agent -> remainWhisperMap.put(agent, gameSetting.maxWhisper()));
+			aliveWolfList.forEach(agent -> remainWhispers[agent.idx] = gameSetting.maxWhisper());
 			return true;
 		} else {
 			return false;
@@ -1,16 +1,18 @@
 package core;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -18,34 +20,55 @@ import java.util.concurrent.TimeoutException;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 import core.exception.LostAgentConnectionException;
 import core.model.Agent;
 import core.model.Config;
+import core.model.GameInfo;
 import core.model.GameSetting;
 import core.model.Packet;
 import core.model.Request;
 import core.model.Role;
 import core.model.Talk;
-import libs.CallableBufferedReader;
 import utils.JsonParser;
+import utils.ThreadBuilder;
 
 public class GameServer {
 	private static final Logger logger = LogManager.getLogger(GameServer.class);
+	// 差分送信の対象となるリクエスト (INITIALIZE/DAILY_INITIALIZE/FINISHは常に全項目を送信する)
+	private static final Set<Request> DELTA_REQUESTS = EnumSet.of(Request.DIVINE, Request.GUARD, Request.WHISPER,
+			Request.VOTE, Request.ATTACK);
+
+	// 全ゲームで共有する一斉送信・並列リクエスト用のスレッド
+	private static ExecutorService executor = null;
 
 	private GameSetting gameSetting;
 	private final Config config;
-	private final Set<Connection> connections;
+	// エージェント番号をインデックスとする接続表 (切断後も同じ接続を指し続ける)
+	private final Connection[] connectionTable;
 
 	private List<Agent> agents;
 	private GameData gameData;
-	private final Map<Agent, Integer> lastTalkIdxMap = new HashMap<>();
-	private final Map<Agent, Integer> lastWhisperIdxMap = new HashMap<>();
+	// 差分送信時に各エージェントへ最後に送信したgameInfo
+	private final Map<Agent, ObjectNode> lastGameInfoMap = new HashMap<>();
+	// 送信から応答までの時間の集計 (ゲームごとに入れ替える)
+	private volatile LatencyRecorder latencyRecorder = new LatencyRecorder();
 
 	public GameServer(GameSetting gameSetting, Config config,
 			Set<Connection> connections) {
 		this.gameSetting = gameSetting;
 		this.config = config;
-		this.connections = connections;
+		int maxIdx = 0;
+		for (Connection connection : connections) {
+			maxIdx = Math.max(maxIdx, connection.getAgent().idx);
+		}
+		this.connectionTable = new Connection[maxIdx + 1];
+		for (Connection connection : connections) {
+			connectionTable[connection.getAgent().idx] = connection;
+		}
 	}
 
 	public void setGameSetting(GameSetting gameSetting) {
@@ -56,8 +79,28 @@ public class GameServer {
 		this.gameData = gameData;
 	}
 
+	public LatencyRecorder getLatencyRecorder() {
+		return latencyRecorder;
+	}
+
+	public LatencyRecorder resetLatencyRecorder() {
+		LatencyRecorder recorder = latencyRecorder;
+		latencyRecorder = new LatencyRecorder();
+		return recorder;
+	}
+
 	private Connection getConnection(Agent agent) {
-		return connections.stream().filter(c -> c.getAgent().equals(agent)).findFirst().orElse(null);
+		if (agent == null || agent.idx < 0 || agent.idx >= connectionTable.length) {
+			return null;
+		}
+		return connectionTable[agent.idx];
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = ThreadBuilder.newExecutor("GameServer-");
+		}
+		return executor;
 	}
 
 	private void throwException(Agent agent, Request request, Exception e) throws LostAgentConnectionException {
@@ -71,22 +114,15 @@ public class GameServer {
 		throw new LostAgentConnectionException(e, agent);
 	}
 
-	private String getResponse(Connection connection, ExecutorService pool, Agent agent, Request request,
-			long timeout)
+	private String getResponse(Connection connection, Agent agent, Object message, long timeout)
 			throws Exception {
-		send(agent, request);
-		CallableBufferedReader task = new CallableBufferedReader(connection.getBufferedReader());
-		Future<String> future = pool.submit(task);
-		String line = null;
-		try {
-			line = timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
-		} catch (TimeoutException e) {
-			future.cancel(true);
-			throw e;
-		}
-		if (!task.isSuccess()) {
-			throw task.getException();
+		// タイムアウト後に遅れて届いた応答を破棄
+		int staleCount = connection.clearResponses();
+		if (staleCount > 0) {
+			logger.warn(String.format("Discard %d stale response(s) from %s", staleCount, agent));
 		}
+		connection.send(message);
+		String line = connection.readLine(timeout);
 		logger.trace(String.format("Response: %s from %s", line, agent));
 		return line;
 	}
@@ -103,41 +139,48 @@ public class GameServer {
 		};
 	}
 
+	private Object getForceSkipData(Request request) {
+		// 発話は強制スキップとし、それ以外は無回答として扱う
+		return switch (request) {
+			case TALK, WHISPER -> Talk.FORCE_SKIP;
+			default -> null;
+		};
+	}
+
 	private Object request(Agent agent, Request request) {
+		return request(agent, request, createMessage(agent, request));
+	}
+
+	private Object request(Agent agent, Request request, Object message) {
 		// ゲーム設定からレスポンスとアクションのタイムアウトを取得
 		long responseTimeout = gameSetting.responseTimeout();
 		long actionTimeout = gameSetting.actionTimeout();
 		// エージェントに関連付けられた接続を取得
 		Connection connection = getConnection(agent);
-		ExecutorService pool = Executors.newSingleThreadExecutor();
+		LatencyRecorder recorder = latencyRecorder;
+		long startTime = System.nanoTime();
 		try {
 			try {
 				// 短いタイムアウト内にレスポンスを取得
-				String line = getResponse(connection, pool, agent, request, Math.min(responseTimeout, actionTimeout));
+				String line = getResponse(connection, agent, message, Math.min(responseTimeout, actionTimeout));
+				recorder.record(agent.name, request, System.nanoTime() - startTime);
 				if (line != null && line.equals(Talk.FORCE_SKIP)) {
 					line = Talk.SKIP;
 				}
 				return convertRequestData(request, line);
 			} catch (TimeoutException e) {
 				logger.warn("Timeout: " + request);
+				recorder.timeout(agent.name, request);
 				// アクションのタイムアウトを超えた場合
 				if (responseTimeout > actionTimeout) {
 					try {
-						// 接続が切れたかどうかを確認
-						String line = null;
-						long remainingTimeout = responseTimeout - actionTimeout;
-						while (remainingTimeout > 0) {
-							long startTime = System.currentTimeMillis();
-							line = getResponse(connection, pool, agent, Request.NAME, remainingTimeout);
-							remainingTimeout -= (System.currentTimeMillis() - startTime);
-							// 名前が一致するかを確認
-							String expectedName = agent.name;
-							if (expectedName.equals(line)) {
-								return convertRequestData(Request.TALK, Talk.FORCE_SKIP);
-							}
-						}
-						throwException(agent, request, new IOException("Name mismatch"));
-						return null;
+						// 追加のリクエストは送らずに遅れて届く応答を待つ
+						// 切断された場合は読み込み側で検知され、EOFExceptionとして通知される
+						String line = connection.readLine(responseTimeout - actionTimeout);
+						recorder.record(agent.name, request, System.nanoTime() - startTime);
+						recorder.forceSkip(agent.name, request);
+						logger.warn(String.format("Discard late response from %s: %s", agent, line));
+						return getForceSkipData(request);
 					} catch (TimeoutException e1) {
 						// 再度タイムアウトした場合
 						throwException(agent, request, e1);
@@ -153,11 +196,64 @@ public class GameServer {
 			// リクエスト中に発生する他の例外を処理
 			throwException(agent, request, e);
 			return null;
-		} finally {
-			pool.shutdownNow();
 		}
 	}
 
+	private <T> Map<Agent, T> requestAll(Collection<Agent> agents, Request request, Class<T> clazz) {
+		Map<Agent, T> results = new LinkedHashMap<>();
+		if (!config.parallelAction() || agents.size() <= 1) {
+			for (Agent agent : agents) {
+				results.put(agent, clazz.cast(request(agent, request)));
+			}
+			return results;
+		}
+		// パケットの作成はゲームのスレッドで行い、送信と応答の待機を並列に実行する
+		Map<Agent, Future<Object>> futures = new LinkedHashMap<>();
+		for (Agent agent : agents) {
+			Object message = createMessage(agent, request);
+			futures.put(agent, getExecutor().submit(() -> request(agent, request, message)));
+		}
+		// 各リクエストはタイムアウトで打ち切られるため、すべての応答が揃うまで待つ
+		RuntimeException exception = null;
+		for (Map.Entry<Agent, Future<Object>> entry : futures.entrySet()) {
+			try {
+				results.put(entry.getKey(), clazz.cast(entry.getValue().get()));
+			} catch (ExecutionException e) {
+				results.put(entry.getKey(), null);
+				if (exception == null) {
+					exception = e.getCause() instanceof RuntimeException cause ? cause
+							: new LostAgentConnectionException(e.getCause(), entry.getKey());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				results.put(entry.getKey(), null);
+				if (exception == null) {
+					exception = new LostAgentConnectionException(e, entry.getKey());
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+		return results;
+	}
+
+	public Map<Agent, Agent> requestAttackTargets(Collection<Agent> agents) {
+		return requestAll(agents, Request.ATTACK, Agent.class);
+	}
+
+	public Map<Agent, Agent> requestDivineTargets(Collection<Agent> agents) {
+		return requestAll(agents, Request.DIVINE, Agent.class);
+	}
+
+	public Map<Agent, Agent> requestGuardTargets(Collection<Agent> agents) {
+		return requestAll(agents, Request.GUARD, Agent.class);
+	}
+
+	public Map<Agent, Agent> requestVotes(Collection<Agent> agents) {
+		return requestAll(agents, Request.VOTE, Agent.class);
+	}
+
 	public Agent requestAttackTarget(Agent agent) {
 		return (Agent) request(agent, Request.ATTACK);
 	}
@@ -195,15 +291,19 @@ public class GameServer {
 		return agents;
 	}
 
-	private String getMessage(Agent agent, Request request) {
+	private Object getMessage(Agent agent, Request request) {
 		Packet packet = null;
 		// 各リクエストに応じたパケットの作成
 		switch (request) {
 			case DAILY_INITIALIZE:
 			case INITIALIZE:
-				lastTalkIdxMap.clear();
-				lastWhisperIdxMap.clear();
+				// 全項目を送信したため、次の発話履歴は先頭から送る
+				gameData.getTalkList().rewind(agent);
+				gameData.getWhisperList().rewind(agent);
 				packet = new Packet(request, gameData.getGameInfo(agent), gameSetting);
+				if (gameSetting.isDeltaGameInfo()) {
+					lastGameInfoMap.put(agent, JsonParser.toTree(packet.gameInfo()));
+				}
 				break;
 			case NAME:
 			case ROLE:
@@ -234,14 +334,13 @@ public class GameServer {
 				break;
 		}
 		if (packet != null) {
-			return JsonParser.encode(packet);
+			if (gameSetting.isDeltaGameInfo() && DELTA_REQUESTS.contains(request) && lastGameInfoMap.containsKey(agent)) {
+				return getDeltaPacket(agent, request, packet.gameInfo());
+			}
+			return packet;
 		}
-		List<Talk> talkList = gameData.getTalkList();
-		List<Talk> whisperList = gameData.getGameInfo(agent).whisperList;
-		talkList = minimize(agent, talkList, lastTalkIdxMap);
-		whisperList = minimize(agent, whisperList, lastWhisperIdxMap);
-		packet = new Packet(request, talkList, whisperList);
-		return JsonParser.encode(packet);
+		// 前回の送信以降の発話のみを送る (囁きは閲覧できるエージェントのみ)
+		return new Packet(request, gameData.getTalkList().readNew(agent), gameData.getWhisperList().readNew(agent));
 	}
 
 	public Set<String> getNames() {
@@ -252,33 +351,123 @@ public class GameServer {
 		return new HashSet<>(set);
 	}
 
-	private List<Talk> minimize(Agent agent, List<Talk> list, Map<Agent, Integer> lastIdxMap) {
-		int lastIdx = list.size();
-		if (lastIdxMap.containsKey(agent) && list.size() >= lastIdxMap.get(agent)) {
-			list = list.subList(lastIdxMap.get(agent), list.size());
+	private ObjectNode getDeltaPacket(Agent agent, Request request, GameInfo gameInfo) {
+		ObjectNode current = JsonParser.toTree(gameInfo);
+		ObjectNode last = lastGameInfoMap.put(agent, current);
+		ObjectNode delta = current.objectNode();
+		Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			String name = field.getKey();
+			JsonNode value = field.getValue();
+			switch (name) {
+				case "day":
+				case "agent":
+					delta.set(name, value);
+					break;
+				case "talkList":
+					delta.set(name, slice(agent, name, (ArrayNode) value, gameData.getTalkList().advance(agent)));
+					break;
+				case "whisperList":
+					delta.set(name, slice(agent, name, (ArrayNode) value, gameData.getWhisperList().advance(agent)));
+					break;
+				default:
+					// 前回送信時から変化した項目のみ送信する
+					if (!value.equals(last.get(name))) {
+						delta.set(name, value);
+					}
+					break;
+			}
 		}
-		lastIdxMap.put(agent, lastIdx);
-		return list;
+		// nullになり出力されなくなった項目 (divineResultなど) は、削除されたことをnullで送信する
+		Iterator<String> lastNames = last.fieldNames();
+		while (lastNames.hasNext()) {
+			String name = lastNames.next();
+			if (!current.has(name)) {
+				delta.putNull(name);
+			}
+		}
+		ObjectNode packet = current.objectNode();
+		packet.put("request", request.name());
+		packet.set("gameInfo", delta);
+		return packet;
 	}
 
-	private void send(Agent agent, Request request) {
-		logger.trace(String.format("Request: %s to %s", request, agent));
-		String message = getMessage(agent, request);
-		if (message.isEmpty()) {
-			logger.warn("Empty message: " + request);
-			logger.warn("Agent: " + agent);
+	private ArrayNode slice(Agent agent, String name, ArrayNode list, int from) {
+		if (from > list.size()) {
+			// カーソルと発話履歴が対応していない (発話履歴は追記のみのため通常は起こらない)
+			logger.error(String.format("%s cursor of %s is %d but the list has only %d talks. Send the whole list.",
+					name, agent, from, list.size()));
+			return list;
+		}
+		if (from == 0) {
+			return list;
 		}
+		ArrayNode subList = list.arrayNode();
+		for (int i = from; i < list.size(); i++) {
+			subList.add(list.get(i));
+		}
+		return subList;
+	}
+
+	private Object createMessage(Agent agent, Request request) {
+		logger.trace(String.format("Request: %s to %s", request, agent));
+		// パケットは文字列に変換せず、送信時に接続のバッファへ直接書き込む
+		return getMessage(agent, request);
+	}
+
+	private void send(Agent agent, Request request) {
+		Object message = createMessage(agent, request);
 		Connection connection = getConnection(agent);
-		BufferedWriter bw = connection.getBufferedWriter();
 		try {
-			bw.append(message);
-			bw.append("\n");
-			bw.flush();
+			connection.send(message);
 		} catch (IOException e) {
 			throwException(agent, request, e);
 		}
 	}
 
+	public void broadcast(Collection<Agent> agents, Request request) {
+		if (agents.size() <= 1) {
+			agents.forEach(agent -> send(agent, request));
+			return;
+		}
+		// パケットはゲームの状態を参照するため、バイト列へのエンコードまでゲームのスレッドで行い、書き込みのみ並列に実行する
+		Map<Agent, Future<?>> futures = new LinkedHashMap<>();
+		for (Agent agent : agents) {
+			byte[] message = JsonParser.encodeAsBytes(createMessage(agent, request));
+			Connection connection = getConnection(agent);
+			futures.put(agent, getExecutor().submit(() -> {
+				connection.send(message);
+				return null;
+			}));
+		}
+		// すべての書き込みが完了するかタイムアウトするまで待つ
+		long timeout = gameSetting.responseTimeout();
+		long deadline = System.currentTimeMillis() + timeout;
+		Map<Agent, Exception> failures = new LinkedHashMap<>();
+		for (Map.Entry<Agent, Future<?>> entry : futures.entrySet()) {
+			Future<?> future = entry.getValue();
+			try {
+				if (timeout <= 0) {
+					future.get();
+				} else {
+					future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+				}
+			} catch (ExecutionException e) {
+				failures.put(entry.getKey(), e.getCause() instanceof Exception cause ? cause : e);
+			} catch (TimeoutException e) {
+				// ソケットへの書き込みは割り込めないため、接続を閉じて書き込み中のスレッドを解放する
+				future.cancel(true);
+				getConnection(entry.getKey()).close();
+				failures.put(entry.getKey(), e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failures.put(entry.getKey(), e);
+			}
+		}
+		failures.forEach((agent, e) -> throwException(agent, request, e));
+	}
+
 	public void setAgents(Collection<Agent> agents) {
 		this.agents = new ArrayList<>(agents);
 	}
@@ -0,0 +1,145 @@
+package core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import utils.JsonParser;
+
+/**
+ * 同じJVM上のエージェントと有限長のキューでやり取りするトランスポート。
+ * encode=falseの場合はパケットをJSONの木 (ObjectNode) に変換して渡し、
+ * trueの場合はJSONにエンコードしたバイト列 (改行なし) を渡す。
+ * いずれもサーバ側のGameInfoとは独立した複製のため、送信後にゲームが進行しても影響を受けない。
+ */
+public class InMemoryTransport implements Transport {
+	// 切断を表す番兵 (参照で比較する)
+	private static final Object CLOSED = new Object();
+
+	private final BlockingQueue<Object> toAgent;
+	private final BlockingQueue<Object> toServer;
+	private final boolean encode;
+	private final long writeTimeout;
+	private volatile boolean isClosed = false;
+
+	// エージェント側の端点
+	public class Endpoint {
+		public Object receive(long timeout) throws IOException, InterruptedException, TimeoutException {
+			return poll(toAgent, timeout);
+		}
+
+		public void reply(String line) throws IOException, InterruptedException {
+			offer(toServer, line, writeTimeout);
+		}
+
+		public void close() {
+			InMemoryTransport.this.close();
+		}
+	}
+
+	private final Endpoint endpoint = new Endpoint();
+
+	public InMemoryTransport(int capacity, boolean encode, long writeTimeout) {
+		this.toAgent = new ArrayBlockingQueue<>(capacity);
+		this.toServer = new ArrayBlockingQueue<>(capacity);
+		this.encode = encode;
+		this.writeTimeout = writeTimeout;
+	}
+
+	public Endpoint getEndpoint() {
+		return endpoint;
+	}
+
+	private Object poll(BlockingQueue<Object> queue, long timeout)
+			throws IOException, InterruptedException, TimeoutException {
+		Object message = timeout > 0 ? queue.poll(timeout, TimeUnit.MILLISECONDS) : queue.take();
+		if (message == null) {
+			throw new TimeoutException();
+		}
+		if (message == CLOSED) {
+			// 後続の呼び出しでも切断を検知できるよう番兵を戻す
+			queue.offer(CLOSED);
+			throw new EOFException();
+		}
+		return message;
+	}
+
+	private void offer(BlockingQueue<Object> queue, Object message, long timeout)
+			throws IOException, InterruptedException {
+		if (isClosed) {
+			throw new EOFException();
+		}
+		if (!queue.offer(message, Math.max(timeout, 0), TimeUnit.MILLISECONDS)) {
+			throw new IOException("Queue is full.");
+		}
+	}
+
+	@Override
+	public int write(Object packet) throws IOException {
+		Object message;
+		int length = 0;
+		if (!encode) {
+			// 応答を待たないリクエストではゲームのスレッドがすぐに状態を変更するため、送信時点の複製を渡す
+			if (packet instanceof byte[] bytes) {
+				message = JsonParser.toTree(bytes);
+			} else {
+				message = packet instanceof JsonNode node ? node.deepCopy() : JsonParser.toTree(packet);
+			}
+		} else if (packet instanceof byte[] bytes) {
+			// エンコード済みのパケットはそのまま渡す
+			message = bytes;
+			length = bytes.length;
+		} else {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1024);
+			JsonParser.write(outputStream, packet);
+			byte[] bytes = outputStream.toByteArray();
+			message = bytes;
+			length = bytes.length;
+		}
+		try {
+			offer(toAgent, message, writeTimeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		return length;
+	}
+
+	@Override
+	public String readLine(long timeout) throws IOException, InterruptedException, TimeoutException {
+		return (String) poll(toServer, timeout);
+	}
+
+	@Override
+	public int clear() {
+		int count = 0;
+		Object message;
+		while ((message = toServer.peek()) != null && message != CLOSED) {
+			toServer.poll();
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public void close() {
+		if (isClosed) {
+			return;
+		}
+		isClosed = true;
+		// 待機中の読み込みを解放する (未読のパケットは破棄する)
+		for (BlockingQueue<Object> queue : List.of(toAgent, toServer)) {
+			queue.clear();
+			while (!queue.offer(CLOSED)) {
+				queue.poll();
+			}
+		}
+	}
+}
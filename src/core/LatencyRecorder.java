@@ -0,0 +1,125 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import core.model.Request;
+import libs.LatencyHistogram;
+
+public class LatencyRecorder {
+	// 大会全体の集計 (各ゲームの終了時に加算する)
+	private static final LatencyRecorder total = new LatencyRecorder();
+
+	private static class Stats {
+		// 送信から受信までの時間 (マイクロ秒)
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		private final AtomicLong timeoutCount = new AtomicLong();
+		private final AtomicLong forceSkipCount = new AtomicLong();
+
+		private void add(Stats other) {
+			histogram.add(other.histogram);
+			timeoutCount.addAndGet(other.timeoutCount.get());
+			forceSkipCount.addAndGet(other.forceSkipCount.get());
+		}
+
+		private boolean isEmpty() {
+			return histogram.getCount() == 0 && timeoutCount.get() == 0 && forceSkipCount.get() == 0;
+		}
+	}
+
+	// エージェント名ごとにリクエストの種類で引く集計表
+	private final Map<String, Stats[]> statsMap = new ConcurrentHashMap<>();
+
+	public static LatencyRecorder getTotal() {
+		return total;
+	}
+
+	private Stats getStats(String name, Request request) {
+		Stats[] stats = statsMap.computeIfAbsent(name, key -> {
+			Stats[] array = new Stats[Request.values().length];
+			for (int i = 0; i < array.length; i++) {
+				array[i] = new Stats();
+			}
+			return array;
+		});
+		return stats[request.ordinal()];
+	}
+
+	public void record(String name, Request request, long nanos) {
+		getStats(name, request).histogram.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	public void timeout(String name, Request request) {
+		getStats(name, request).timeoutCount.incrementAndGet();
+	}
+
+	public void forceSkip(String name, Request request) {
+		getStats(name, request).forceSkipCount.incrementAndGet();
+	}
+
+	public void merge(LatencyRecorder other) {
+		for (Map.Entry<String, Stats[]> entry : other.statsMap.entrySet()) {
+			for (Request request : Request.values()) {
+				getStats(entry.getKey(), request).add(entry.getValue()[request.ordinal()]);
+			}
+		}
+	}
+
+	public Set<String> getNames() {
+		return new TreeSet<>(statsMap.keySet());
+	}
+
+	public LatencyHistogram getHistogram(String name, Request request) {
+		Stats[] stats = statsMap.get(name);
+		return stats == null ? null : stats[request.ordinal()].histogram;
+	}
+
+	public long getTimeoutCount(String name, Request request) {
+		Stats[] stats = statsMap.get(name);
+		return stats == null ? 0 : stats[request.ordinal()].timeoutCount.get();
+	}
+
+	public long getForceSkipCount(String name, Request request) {
+		Stats[] stats = statsMap.get(name);
+		return stats == null ? 0 : stats[request.ordinal()].forceSkipCount.get();
+	}
+
+	public List<String> summarize() {
+		// name,request,count,p50,p90,p99,max,timeout,forceSkip
+		List<String> lines = new ArrayList<>();
+		for (String name : getNames()) {
+			for (String line : summarize(name)) {
+				lines.add(name + "," + line);
+			}
+		}
+		return lines;
+	}
+
+	public List<String> summarize(String name) {
+		// request,count,p50,p90,p99,max,timeout,forceSkip (時間はミリ秒)
+		List<String> lines = new ArrayList<>();
+		Stats[] stats = statsMap.get(name);
+		if (stats == null) {
+			return lines;
+		}
+		for (Request request : Request.values()) {
+			Stats stat = stats[request.ordinal()];
+			if (stat.isEmpty()) {
+				continue;
+			}
+			LatencyHistogram histogram = stat.histogram;
+			lines.add(String.format(Locale.ROOT, "%s,%d,%.1f,%.1f,%.1f,%.1f,%d,%d", request, histogram.getCount(),
+					histogram.getPercentile(50) / 1000.0, histogram.getPercentile(90) / 1000.0,
+					histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0, stat.timeoutCount.get(),
+					stat.forceSkipCount.get()));
+		}
+		return lines;
+	}
+}
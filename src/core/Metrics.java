@@ -0,0 +1,167 @@
+package core;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import core.model.Request;
+import libs.LatencyHistogram;
+
+public class Metrics {
+	// 直近1分間の完了数は1秒ごとのバケットの合計で数える
+	private static final int MINUTE_SECONDS = 60;
+
+	// 各スレッドはカウンタを更新するだけで、読み込み側はロックを取らずに値を参照する
+	private static final AtomicInteger gamesRunning = new AtomicInteger();
+	private static final LongAdder gamesCompleted = new LongAdder();
+	private static final LongAdder[] completedBuckets = new LongAdder[MINUTE_SECONDS];
+	// 各バケットが集計している時刻 (エポック秒)
+	private static final AtomicLongArray completedBucketSeconds = new AtomicLongArray(MINUTE_SECONDS);
+	private static final AtomicInteger socketQueueLength = new AtomicInteger();
+	private static final AtomicInteger waitingSockets = new AtomicInteger();
+	private static final Map<String, LongAdder> lostConnections = new ConcurrentHashMap<>();
+	private static final Map<String, LongAdder> bytesIn = new ConcurrentHashMap<>();
+	private static final Map<String, LongAdder> bytesOut = new ConcurrentHashMap<>();
+
+	static {
+		for (int i = 0; i < MINUTE_SECONDS; i++) {
+			completedBuckets[i] = new LongAdder();
+		}
+	}
+
+	public static void gameStarted() {
+		gamesRunning.incrementAndGet();
+	}
+
+	public static void gameFinished() {
+		gamesRunning.decrementAndGet();
+	}
+
+	public static void gameCompleted() {
+		gamesCompleted.increment();
+		long second = System.currentTimeMillis() / 1000;
+		int index = (int) (second % MINUTE_SECONDS);
+		long bucketSecond = completedBucketSeconds.get(index);
+		// 1分前のバケットは最初に更新したスレッドが空にする (同時に加算した分が失われることは許容する)
+		if (bucketSecond != second && completedBucketSeconds.compareAndSet(index, bucketSecond, second)) {
+			completedBuckets[index].reset();
+		}
+		completedBuckets[index].increment();
+	}
+
+	private static long getCompletedPerMinute() {
+		long second = System.currentTimeMillis() / 1000;
+		long count = 0;
+		for (int i = 0; i < MINUTE_SECONDS; i++) {
+			if (second - completedBucketSeconds.get(i) < MINUTE_SECONDS) {
+				count += completedBuckets[i].sum();
+			}
+		}
+		return count;
+	}
+
+	public static void setSocketQueueLength(int length) {
+		socketQueueLength.set(length);
+	}
+
+	public static void setWaitingSockets(int count) {
+		waitingSockets.set(count);
+	}
+
+	public static void connectionLost(String name) {
+		lostConnections.computeIfAbsent(String.valueOf(name), key -> new LongAdder()).increment();
+	}
+
+	public static void addBytesIn(String name, long bytes) {
+		bytesIn.computeIfAbsent(String.valueOf(name), key -> new LongAdder()).add(bytes);
+	}
+
+	public static void addBytesOut(String name, long bytes) {
+		bytesOut.computeIfAbsent(String.valueOf(name), key -> new LongAdder()).add(bytes);
+	}
+
+	public static int getGamesRunning() {
+		return gamesRunning.get();
+	}
+
+	public static long getGamesCompleted() {
+		return gamesCompleted.sum();
+	}
+
+	public static String scrape(int maxParallelExec) {
+		StringBuilder sb = new StringBuilder();
+		gauge(sb, "aiwolf_games_running", "Games currently running.", gamesRunning.get());
+		gauge(sb, "aiwolf_max_parallel_exec", "Configured maxParallelExec.", maxParallelExec);
+		counter(sb, "aiwolf_games_completed_total", "Games completed since start.", gamesCompleted.sum());
+		gauge(sb, "aiwolf_games_completed_per_minute", "Games completed in the last minute.", getCompletedPerMinute());
+		gauge(sb, "aiwolf_socket_queue_length", "Socket groups waiting for a game.", socketQueueLength.get());
+		gauge(sb, "aiwolf_waiting_sockets", "Sockets waiting in the launcher.", waitingSockets.get());
+		perAgent(sb, "aiwolf_lost_connections_total", "Connections lost per agent.", lostConnections);
+		perAgent(sb, "aiwolf_bytes_in_total", "Bytes received per agent.", bytesIn);
+		perAgent(sb, "aiwolf_bytes_out_total", "Bytes sent per agent.", bytesOut);
+		latency(sb, LatencyRecorder.getTotal());
+		return sb.toString();
+	}
+
+	private static void header(StringBuilder sb, String name, String help, String type) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void gauge(StringBuilder sb, String name, String help, long value) {
+		header(sb, name, help, "gauge");
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+
+	private static void counter(StringBuilder sb, String name, String help, long value) {
+		header(sb, name, help, "counter");
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+
+	private static void perAgent(StringBuilder sb, String name, String help, Map<String, LongAdder> values) {
+		header(sb, name, help, "counter");
+		new TreeMap<>(values).forEach((agent, value) -> sb.append(name).append("{agent=\"").append(escape(agent))
+				.append("\"} ").append(value.sum()).append('\n'));
+	}
+
+	private static void latency(StringBuilder sb, LatencyRecorder recorder) {
+		// 終了したゲームの集計のみを出力する (進行中のゲームの集計には触れない)
+		StringBuilder timeouts = new StringBuilder();
+		StringBuilder forceSkips = new StringBuilder();
+		header(sb, "aiwolf_request_latency_seconds", "Send-to-receive latency per agent and request.", "summary");
+		for (String agent : recorder.getNames()) {
+			for (Request request : Request.values()) {
+				LatencyHistogram histogram = recorder.getHistogram(agent, request);
+				if (histogram == null || histogram.getCount() == 0) {
+					continue;
+				}
+				String labels = String.format("agent=\"%s\",request=\"%s\"", escape(agent), request);
+				for (double quantile : new double[] { 0.5, 0.9, 0.99 }) {
+					sb.append("aiwolf_request_latency_seconds{").append(labels).append(",quantile=\"")
+							.append(quantile).append("\"} ").append(histogram.getPercentile(quantile * 100) / 1e6)
+							.append('\n');
+				}
+				// 合計はマイクロ秒で保持している
+				sb.append("aiwolf_request_latency_seconds_sum{").append(labels).append("} ")
+						.append(histogram.getSum() / 1e6).append('\n');
+				sb.append("aiwolf_request_latency_seconds_count{").append(labels).append("} ")
+						.append(histogram.getCount()).append('\n');
+				timeouts.append("aiwolf_request_timeouts_total{").append(labels).append("} ")
+						.append(recorder.getTimeoutCount(agent, request)).append('\n');
+				forceSkips.append("aiwolf_request_force_skips_total{").append(labels).append("} ")
+						.append(recorder.getForceSkipCount(agent, request)).append('\n');
+			}
+		}
+		header(sb, "aiwolf_request_timeouts_total", "Requests that exceeded actionTimeout.", "counter");
+		sb.append(timeouts);
+		header(sb, "aiwolf_request_force_skips_total", "Late responses discarded as force skips.", "counter");
+		sb.append(forceSkips);
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
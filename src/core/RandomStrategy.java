@@ -0,0 +1,58 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import core.model.Agent;
+import core.model.GameInfo;
+import core.model.Status;
+import core.model.Talk;
+
+/**
+ * 発話せず、自分以外の生存者からランダムに対象を選ぶ戦略。
+ */
+public class RandomStrategy implements AgentStrategy {
+	@Override
+	public String talk() {
+		return Talk.OVER;
+	}
+
+	@Override
+	public String whisper() {
+		return Talk.OVER;
+	}
+
+	@Override
+	public Agent vote(GameInfo gameInfo) {
+		return getRandomAgent(gameInfo);
+	}
+
+	@Override
+	public Agent divine(GameInfo gameInfo) {
+		return getRandomAgent(gameInfo);
+	}
+
+	@Override
+	public Agent guard(GameInfo gameInfo) {
+		return getRandomAgent(gameInfo);
+	}
+
+	@Override
+	public Agent attack(GameInfo gameInfo) {
+		return getRandomAgent(gameInfo);
+	}
+
+	private Agent getRandomAgent(GameInfo gameInfo) {
+		List<Agent> candidates = new ArrayList<>();
+		gameInfo.statusMap.forEach((agent, status) -> {
+			if (status == Status.ALIVE && agent != gameInfo.agent) {
+				candidates.add(agent);
+			}
+		});
+		if (candidates.isEmpty()) {
+			return null;
+		}
+		return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+	}
+}
@@ -0,0 +1,143 @@
+package core;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import core.model.Agent;
+import core.model.Config;
+import core.model.GameInfo;
+import core.model.GameSetting;
+import core.model.Request;
+import core.model.Role;
+
+/**
+ * 接続を持たず、同じJVM上の戦略を直接呼び出すGameServer。
+ * パケットのエンコードやスレッドの切り替えを行わないため、ゲームはすべて呼び出し元のスレッドで進行する。
+ */
+public class SimulationServer extends GameServer {
+	private final Map<Agent, AgentStrategy> strategyMap;
+	private GameSetting gameSetting;
+	private GameData gameData;
+
+	public SimulationServer(GameSetting gameSetting, Config config, Map<Agent, AgentStrategy> strategyMap) {
+		super(gameSetting, config, Set.of());
+		this.gameSetting = gameSetting;
+		this.strategyMap = strategyMap;
+	}
+
+	@Override
+	public void setGameSetting(GameSetting gameSetting) {
+		super.setGameSetting(gameSetting);
+		this.gameSetting = gameSetting;
+	}
+
+	@Override
+	public void setGameData(GameData gameData) {
+		super.setGameData(gameData);
+		this.gameData = gameData;
+	}
+
+	private AgentStrategy getStrategy(Agent agent) {
+		return strategyMap.get(agent);
+	}
+
+	private Map<Agent, Agent> requestAll(Collection<Agent> agents,
+			BiFunction<AgentStrategy, GameInfo, Agent> action) {
+		Map<Agent, Agent> results = new LinkedHashMap<>();
+		for (Agent agent : agents) {
+			results.put(agent, action.apply(getStrategy(agent), gameData.getGameInfo(agent)));
+		}
+		return results;
+	}
+
+	@Override
+	public Map<Agent, Agent> requestAttackTargets(Collection<Agent> agents) {
+		return requestAll(agents, AgentStrategy::attack);
+	}
+
+	@Override
+	public Map<Agent, Agent> requestDivineTargets(Collection<Agent> agents) {
+		return requestAll(agents, AgentStrategy::divine);
+	}
+
+	@Override
+	public Map<Agent, Agent> requestGuardTargets(Collection<Agent> agents) {
+		return requestAll(agents, AgentStrategy::guard);
+	}
+
+	@Override
+	public Map<Agent, Agent> requestVotes(Collection<Agent> agents) {
+		return requestAll(agents, AgentStrategy::vote);
+	}
+
+	@Override
+	public Agent requestAttackTarget(Agent agent) {
+		return getStrategy(agent).attack(gameData.getGameInfo(agent));
+	}
+
+	@Override
+	public Agent requestDivineTarget(Agent agent) {
+		return getStrategy(agent).divine(gameData.getGameInfo(agent));
+	}
+
+	@Override
+	public Agent requestGuardTarget(Agent agent) {
+		return getStrategy(agent).guard(gameData.getGameInfo(agent));
+	}
+
+	@Override
+	public Role requestRequestRole(Agent agent) {
+		return null;
+	}
+
+	@Override
+	public String requestTalk(Agent agent) {
+		return getStrategy(agent).talk();
+	}
+
+	@Override
+	public Agent requestVote(Agent agent) {
+		return getStrategy(agent).vote(gameData.getGameInfo(agent));
+	}
+
+	@Override
+	public String requestWhisper(Agent agent) {
+		return getStrategy(agent).whisper();
+	}
+
+	@Override
+	public void broadcast(Collection<Agent> agents, Request request) {
+		// DAILY_FINISHは通知する内容がないため省略する
+		if (request == Request.DAILY_FINISH) {
+			return;
+		}
+		for (Agent agent : agents) {
+			GameInfo gameInfo = request == Request.FINISH ? gameData.getFinalGameInfo(agent)
+					: gameData.getGameInfo(agent);
+			getStrategy(agent).update(request, gameInfo, gameSetting);
+		}
+	}
+
+	@Override
+	public void dayFinish(Agent agent) {
+		broadcast(Set.of(agent), Request.DAILY_FINISH);
+	}
+
+	@Override
+	public void dayStart(Agent agent) {
+		broadcast(Set.of(agent), Request.DAILY_INITIALIZE);
+	}
+
+	@Override
+	public void finish(Agent agent) {
+		broadcast(Set.of(agent), Request.FINISH);
+	}
+
+	@Override
+	public void init(Agent agent) {
+		broadcast(Set.of(agent), Request.INITIALIZE);
+	}
+}
@@ -0,0 +1,78 @@
+package core;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import libs.QueuedBufferedReader;
+import utils.JsonParser;
+import utils.ThreadBuilder;
+
+public class SocketTransport implements Transport {
+	private final Socket socket;
+	private final BufferedReader bufferedReader;
+	private final BufferedOutputStream outputStream;
+	private final QueuedBufferedReader queuedReader;
+	// 一斉送信のスレッドとゲームのスレッドの書き込みが混ざらないよう、1パケットずつ書き込む
+	private final ReentrantLock writeLock = new ReentrantLock();
+	// ソケットへ書き出したバイト数の累計
+	private long writtenBytes = 0;
+
+	public SocketTransport(Socket socket) throws IOException {
+		this.socket = socket;
+		bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		outputStream = new BufferedOutputStream(new FilterOutputStream(socket.getOutputStream()) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				writtenBytes++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				writtenBytes += len;
+			}
+		});
+		queuedReader = new QueuedBufferedReader(bufferedReader);
+		ThreadBuilder.startDaemon("Reader-" + socket.getRemoteSocketAddress(), queuedReader);
+	}
+
+	@Override
+	public int write(Object packet) throws IOException {
+		writeLock.lock();
+		try {
+			long before = writtenBytes;
+			// 文字列を経由せずにソケットのバッファへ直接書き込む
+			JsonParser.write(outputStream, packet);
+			outputStream.write('\n');
+			outputStream.flush();
+			return (int) (writtenBytes - before);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@Override
+	public String readLine(long timeout) throws IOException, InterruptedException, TimeoutException {
+		return queuedReader.poll(timeout);
+	}
+
+	@Override
+	public int clear() {
+		return queuedReader.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		// 読み込みスレッドを解放するため先にソケットを閉じる
+		socket.close();
+		bufferedReader.close();
+		outputStream.close();
+	}
+}
@@ -0,0 +1,15 @@
+package core;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+public interface Transport {
+	// 送信したバイト数を返す
+	int write(Object packet) throws IOException;
+
+	String readLine(long timeout) throws IOException, InterruptedException, TimeoutException;
+
+	int clear();
+
+	void close() throws IOException;
+}
@@ -0,0 +1,76 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import core.model.Agent;
+
+/**
+ * エージェント番号をインデックスとする得票数の集計。
+ * 最初に票を得た順序を保持し、最多得票数を加算のたびに更新するため、
+ * 集計と最多得票者の取得でソートや値のボクシングを行わない。
+ * clear()で再利用でき、同じゲームのスレッドからのみ使用する。
+ */
+public class VoteCounter {
+	private int[] counts;
+	// 最初に票を得た順のエージェント
+	private Agent[] agents;
+	private int size = 0;
+	private int max = 0;
+
+	public VoteCounter() {
+		this(16);
+	}
+
+	public VoteCounter(int capacity) {
+		counts = new int[Math.max(capacity, 1)];
+		agents = new Agent[Math.max(capacity, 1)];
+	}
+
+	public void add(Agent agent) {
+		if (agent.idx >= counts.length) {
+			counts = Arrays.copyOf(counts, Math.max(agent.idx + 1, counts.length * 2));
+		}
+		if (size == agents.length) {
+			agents = Arrays.copyOf(agents, size * 2);
+		}
+		int count = ++counts[agent.idx];
+		if (count == 1) {
+			agents[size++] = agent;
+		}
+		if (count > max) {
+			max = count;
+		}
+	}
+
+	public int get(Agent agent) {
+		return agent.idx < counts.length ? counts[agent.idx] : 0;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * 最多得票のエージェントを最初に票を得た順で返す。票がない場合は空のリストを返す。
+	 */
+	public List<Agent> getLargestList() {
+		List<Agent> list = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			if (counts[agents[i].idx] == max) {
+				list.add(agents[i]);
+			}
+		}
+		return list;
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			counts[agents[i].idx] = 0;
+			agents[i] = null;
+		}
+		size = 0;
+		max = 0;
+	}
+}
@@ -1,7 +1,7 @@
 package core.model;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -14,8 +14,11 @@ import utils.AgentSerializer;
 final public class Agent implements Comparable<Agent> {
 	public final int idx;
 	public String name;
+	// パケットごとに文字列を生成しないよう表記を保持する
+	private final String label;
 
-	private static final Map<Integer, Agent> agentIndexMap = new HashMap<>();
+	// ゲームごとのスレッドから同時に登録されるため並行マップを使用する
+	private static final Map<Integer, Agent> agentIndexMap = new ConcurrentHashMap<>();
 
 	static public Agent getAgent(int idx) {
 		return agentIndexMap.getOrDefault(idx, null);
@@ -42,19 +45,19 @@ final public class Agent implements Comparable<Agent> {
 	}
 
 	static public Agent setAgent(int idx, String name) {
-		Agent agent = agentIndexMap.getOrDefault(idx, null);
-		if (agent == null) {
-			agent = new Agent(idx, name);
-			agentIndexMap.put(idx, agent);
-		} else {
+		return agentIndexMap.compute(idx, (key, agent) -> {
+			if (agent == null) {
+				return new Agent(idx, name);
+			}
 			agent.setName(name);
-		}
-		return agent;
+			return agent;
+		});
 	}
 
 	private Agent(int idx, String name) {
 		this.idx = idx;
 		this.name = name;
+		this.label = String.format("Agent[%02d]", idx);
 	}
 
 	public void setName(String name) {
@@ -63,7 +66,7 @@ final public class Agent implements Comparable<Agent> {
 
 	@Override
 	public String toString() {
-		return String.format("Agent[%02d]", idx);
+		return label;
 	}
 
 	@Override
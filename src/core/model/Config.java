@@ -5,6 +5,7 @@ import java.io.IOException;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 
+import libs.AsyncLogWriter;
 import utils.IniLoader;
 
 @JsonNaming(PropertyNamingStrategy.class)
@@ -37,7 +38,19 @@ public record Config(
         int responseTimeout,
         int actionTimeout,
         boolean ignoreAgentException,
-        String requiredAgentName) {
+        String requiredAgentName,
+        boolean useNioTransport,
+        int nioSelectorThreads,
+        boolean useVirtualThread,
+        boolean deltaGameInfo,
+        boolean parallelAction,
+        int metricsPort,
+        boolean asyncLog,
+        int asyncLogBufferSize,
+        AsyncLogWriter.FlushPolicy asyncLogFlush,
+        int asyncLogFlushInterval,
+        AsyncLogWriter.FsyncPolicy asyncLogFsync,
+        AsyncLogWriter.OverflowPolicy asyncLogOverflow) {
     public enum HumanRole {
         VILLAGER, SEER, POSSESSED, WEREWOLF, NULL,
     }
@@ -72,7 +85,19 @@ public record Config(
                 6000,
                 3000,
                 true,
-                "");
+                "",
+                false,
+                2,
+                false,
+                false,
+                false,
+                0,
+                false,
+                65536,
+                AsyncLogWriter.FlushPolicy.REQUEST,
+                1000,
+                AsyncLogWriter.FsyncPolicy.NONE,
+                AsyncLogWriter.OverflowPolicy.BLOCK);
     }
 
     public static Config load(String filename) throws IOException, ReflectiveOperationException {
@@ -6,6 +6,9 @@ import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import utils.TalkListSerializer;
 
 public class GameInfo {
 	public final int day;
@@ -38,7 +41,9 @@ public class GameInfo {
 	public List<Vote> latestVoteList = new ArrayList<>();
 	public List<Vote> attackVoteList = new ArrayList<>();
 	public List<Vote> latestAttackVoteList = new ArrayList<>();
+	@JsonSerialize(using = TalkListSerializer.class)
 	public List<Talk> talkList = new ArrayList<>();
+	@JsonSerialize(using = TalkListSerializer.class)
 	public List<Talk> whisperList = new ArrayList<>();
 	public Map<Agent, Status> statusMap = new HashMap<>();
 	public Map<Agent, Role> roleMap = new HashMap<>();
@@ -51,4 +56,27 @@ public class GameInfo {
 		this.day = day;
 		this.agent = agent;
 	}
+
+	public GameInfo(GameInfo gameInfo, Agent agent) {
+		this(gameInfo.day, agent);
+		mediumResult = gameInfo.mediumResult;
+		divineResult = gameInfo.divineResult;
+		executedAgent = gameInfo.executedAgent;
+		latestExecutedAgent = gameInfo.latestExecutedAgent;
+		attackedAgent = gameInfo.attackedAgent;
+		cursedFox = gameInfo.cursedFox;
+		guardedAgent = gameInfo.guardedAgent;
+		voteList = gameInfo.voteList;
+		latestVoteList = gameInfo.latestVoteList;
+		attackVoteList = gameInfo.attackVoteList;
+		latestAttackVoteList = gameInfo.latestAttackVoteList;
+		talkList = gameInfo.talkList;
+		whisperList = gameInfo.whisperList;
+		statusMap = gameInfo.statusMap;
+		roleMap = gameInfo.roleMap;
+		remainTalkMap = gameInfo.remainTalkMap;
+		remainWhisperMap = gameInfo.remainWhisperMap;
+		existingRoleList = gameInfo.existingRoleList;
+		lastDeadAgentList = gameInfo.lastDeadAgentList;
+	}
 }
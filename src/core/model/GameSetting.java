@@ -2,6 +2,8 @@ package core.model;
 
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public record GameSetting(
 		Map<Role, Integer> roleNumMap,
 		int maxTalk,
@@ -16,7 +18,8 @@ public record GameSetting(
 		int actionTimeout,
 		int maxRevote,
 		int maxAttackRevote,
-		boolean isEnableRoleRequest) {
+		boolean isEnableRoleRequest,
+		@JsonInclude(JsonInclude.Include.NON_DEFAULT) boolean isDeltaGameInfo) {
 
 	public GameSetting(Config config) {
 		this(
@@ -33,7 +36,8 @@ public record GameSetting(
 				config.actionTimeout(),
 				0,
 				0,
-				false);
+				false,
+				config.deltaGameInfo());
 	}
 
 	public int getRoleNum(Role role) {
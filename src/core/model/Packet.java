@@ -4,13 +4,16 @@ package core.model;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import utils.TalkListSerializer;
 
 public record Packet(
 		Request request,
 		@JsonInclude(JsonInclude.Include.NON_NULL) GameInfo gameInfo,
 		@JsonInclude(JsonInclude.Include.NON_NULL) GameSetting gameSetting,
-		@JsonInclude(JsonInclude.Include.NON_NULL) List<Talk> talkHistory,
-		@JsonInclude(JsonInclude.Include.NON_NULL) List<Talk> whisperHistory) {
+		@JsonInclude(JsonInclude.Include.NON_NULL) @JsonSerialize(using = TalkListSerializer.class) List<Talk> talkHistory,
+		@JsonInclude(JsonInclude.Include.NON_NULL) @JsonSerialize(using = TalkListSerializer.class) List<Talk> whisperHistory) {
 	public Packet(Request request) {
 		this(request, null, null, null, null);
 	}
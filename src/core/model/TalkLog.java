@@ -0,0 +1,140 @@
+package core.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import utils.JsonParser;
+
+/**
+ * 追加時に各発話をJSONへエンコードして保持する追記専用の発話・囁きのログ。
+ * パケットの作成時はTalkListSerializerがエンコード済みの断片をそのまま書き込むため、
+ * 同じ発話を送信先ごとにシリアライズし直さない。subListは同じ断片を参照するビューを返す。
+ * エージェントごとに読み出し位置 (カーソル) を持ち、前回の読み出し以降に追加された発話を定数時間で返す。
+ * 閲覧できないエージェント (囁きにおける人狼以外) には常に空のリストを返す。
+ */
+public class TalkLog extends AbstractList<Talk> implements RandomAccess {
+	private final List<Talk> talks;
+	private final List<SerializableString> fragments;
+	private final int offset;
+	// ビューの長さ (全体の場合は-1)
+	private final int length;
+	private final Predicate<Agent> visibility;
+	// エージェント番号をインデックスとする次に読み出す位置 (ビューでは使用しない)
+	private int[] cursors = new int[0];
+
+	public TalkLog() {
+		this(agent -> true);
+	}
+
+	public TalkLog(Predicate<Agent> visibility) {
+		this(new ArrayList<>(), new ArrayList<>(), 0, -1, visibility);
+	}
+
+	private TalkLog(List<Talk> talks, List<SerializableString> fragments, int offset, int length,
+			Predicate<Agent> visibility) {
+		this.talks = talks;
+		this.fragments = fragments;
+		this.offset = offset;
+		this.length = length;
+		this.visibility = visibility;
+	}
+
+	@Override
+	public boolean add(Talk talk) {
+		if (length >= 0) {
+			throw new UnsupportedOperationException();
+		}
+		// 文字列とUTF-8のバイト列をここで作成し、以降の書き込みで再利用する
+		Fragment fragment = new Fragment(JsonParser.encode(talk), JsonParser.encodeAsBytes(talk));
+		talks.add(talk);
+		fragments.add(fragment);
+		modCount++;
+		return true;
+	}
+
+	@Override
+	public Talk get(int index) {
+		return talks.get(offset + checkIndex(index));
+	}
+
+	public SerializableString getFragment(int index) {
+		return fragments.get(offset + checkIndex(index));
+	}
+
+	@Override
+	public int size() {
+		return length >= 0 ? length : talks.size();
+	}
+
+	@Override
+	public TalkLog subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException(String.format("from: %d, to: %d, size: %d", fromIndex, toIndex,
+					size()));
+		}
+		return new TalkLog(talks, fragments, offset + fromIndex, toIndex - fromIndex, visibility);
+	}
+
+	public boolean isVisible(Agent agent) {
+		return visibility.test(agent);
+	}
+
+	/**
+	 * 前回の読み出し以降に追加された発話を返し、カーソルを末尾へ進める。
+	 */
+	public TalkLog readNew(Agent agent) {
+		int from = advance(agent);
+		return isVisible(agent) ? subList(from, size()) : subList(0, 0);
+	}
+
+	/**
+	 * カーソルを末尾へ進め、進める前の位置を返す。
+	 */
+	public int advance(Agent agent) {
+		if (length >= 0) {
+			throw new UnsupportedOperationException();
+		}
+		if (agent.idx >= cursors.length) {
+			cursors = Arrays.copyOf(cursors, agent.idx + 1);
+		}
+		int from = cursors[agent.idx];
+		cursors[agent.idx] = size();
+		return from;
+	}
+
+	/**
+	 * カーソルを先頭に戻す (次の読み出しではすべての発話を返す)。
+	 */
+	public void rewind(Agent agent) {
+		if (agent.idx < cursors.length) {
+			cursors[agent.idx] = 0;
+		}
+	}
+
+	/**
+	 * エンコード済みの発話。
+	 * ストリームへの出力ではBMP外の文字がエスケープされ、文字列から変換したUTF-8とは異なるため、
+	 * バイト列はストリームと同じ出力で作成したものを使う。
+	 */
+	private static class Fragment extends SerializedString {
+		private Fragment(String value, byte[] utf8) {
+			super(value);
+			// 書き込み時に参照されるUTF-8のバイト列を差し替える
+			_unquotedUTF8Ref = utf8;
+		}
+	}
+
+	private int checkIndex(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException(String.format("index: %d, size: %d", index, size()));
+		}
+		return index;
+	}
+}
@@ -25,6 +25,7 @@ import core.Connection;
 import core.Game;
 import core.GameData;
 import core.GameServer;
+import core.LatencyRecorder;
 import core.exception.DuplicateCombinationException;
 import core.exception.IllegalPlayerNumberException;
 import core.model.Agent;
@@ -33,7 +34,7 @@ import core.model.GameSetting;
 import core.model.Role;
 import libs.RawFileLogger;
 
-public class GameBuilder extends Thread {
+public class GameBuilder implements Runnable {
 	private static final Logger logger = LogManager.getLogger(GameBuilder.class);
 
 	private static final Role[] USED_ROLES = {
@@ -45,6 +46,8 @@ public class GameBuilder extends Thread {
 	private final Config config;
 	private final GameSetting gameSetting;
 	private final Set<Connection> connections = new HashSet<>();
+	// このビルダーで実行したゲームの応答時間
+	private final LatencyRecorder latencyRecorder = new LatencyRecorder();
 
 	public GameBuilder(List<Socket> sockets, Config config) throws IOException {
 		Collections.shuffle(sockets);
@@ -155,15 +158,19 @@ public class GameBuilder extends Thread {
 				Game game = new Game(config, gameSetting, gameServer, gameData, agentRoleMap, rawFileLogger);
 				// ゲームの実行
 				game.start();
+				LatencyRecorder gameLatencyRecorder = gameServer.resetLatencyRecorder();
+				latencyRecorder.merge(gameLatencyRecorder);
+				LatencyRecorder.getTotal().merge(gameLatencyRecorder);
 				// 今回のゲームでエラーが発生したエージェントがいた場合はエラーログを出力する
 				if (config.saveLog()) {
 					Set<Entry<Agent, Connection>> newLostConnectionSet = connections.stream()
 							.filter(Connection::getHasException)
 							.collect(Collectors.toMap(Connection::getAgent, connection -> connection)).entrySet();
 					File file = new File(config.logDir(), String.format("%s_ERROR.log", gameName));
-					RawFileLogger logger = new RawFileLogger(file);
-					for (Entry<Agent, Connection> entry : newLostConnectionSet) {
-						entry.getValue().printException(logger, entry.getKey(), agentRoleMap.get(entry.getKey()));
+					try (RawFileLogger logger = new RawFileLogger(file)) {
+						for (Entry<Agent, Connection> entry : newLostConnectionSet) {
+							entry.getValue().printException(logger, entry.getKey(), agentRoleMap.get(entry.getKey()));
+						}
 					}
 					// エラー出力がなければエラーログファイルを削除
 					if (newLostConnectionSet.isEmpty()) {
@@ -182,6 +189,8 @@ public class GameBuilder extends Thread {
 				break;
 			}
 		}
+		// このビルダーで実行したゲームの応答時間 (name,request,count,p50,p90,p99,max,timeout,forceSkip)
+		latencyRecorder.summarize().forEach(line -> logger.info("Latency: " + line));
 		logger.info("GameBuilder finished.");
 		close();
 	}
@@ -9,14 +9,17 @@ import java.util.Queue;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import core.Metrics;
 import core.model.Config;
+import utils.ThreadBuilder;
 
 public class GameStarter extends Thread {
 	private static final Logger logger = LogManager.getLogger(GameStarter.class);
 
-	private final List<GameBuilder> gameBuilders = new ArrayList<>();
+	private final List<Thread> gameBuilders = new ArrayList<>();
 	private final Queue<List<Socket>> socketQueue;
 	private final Config config;
+	private int gameCount = 0;
 
 	public GameStarter(Queue<List<Socket>> socketQueue, Config config) {
 		this.socketQueue = socketQueue;
@@ -30,19 +33,24 @@ public class GameStarter extends Thread {
 			// 実行が終了しているサーバの削除
 			gameBuilders.removeIf(server -> !server.isAlive());
 			// 同時起動数未満なら待機リストから1グループ取得してゲームを開始する
+			List<Socket> sockets = null;
 			synchronized (socketQueue) {
 				if (!socketQueue.isEmpty() && gameBuilders.size() < config.maxParallelExec()) {
-					GameBuilder builder;
+					sockets = socketQueue.poll();
+					Metrics.setSocketQueueLength(socketQueue.size());
+				}
+			}
+			if (sockets != null) {
+				// エージェント名の取得も含めてゲームごとのスレッドで行う
+				List<Socket> gameSockets = sockets;
+				gameBuilders.add(ThreadBuilder.start("GameBuilder-" + (++gameCount), () -> {
 					try {
-						builder = new GameBuilder(socketQueue.poll(), config);
+						new GameBuilder(gameSockets, config).run();
 					} catch (IOException e) {
 						logger.error("Exception", e);
-						continue;
 					}
-					gameBuilders.add(builder);
-					builder.start();
-					logger.info("Started a new game with a group of sockets.");
-				}
+				}));
+				logger.info("Started a new game with a group of sockets.");
 			}
 			try {
 				Thread.sleep(1000L);
@@ -2,6 +2,7 @@ package launcher;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
@@ -21,20 +22,20 @@ import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import core.Connection;
+import core.Metrics;
 import core.model.Config;
 import core.model.Packet;
 import core.model.Request;
-import libs.CallableBufferedReader;
+import libs.AsyncLogWriter;
 import libs.Pair;
+import libs.RawFileLogger;
 import utils.JsonParser;
+import utils.ThreadBuilder;
 
 public class Launcher {
 	private static final Logger logger = LogManager.getLogger(Launcher.class);
@@ -56,14 +57,25 @@ public class Launcher {
 	}
 
 	public Launcher() throws IOException, ReflectiveOperationException {
-		this.config = Config.load(DEFAULT_CONFIG_PATH);
+		this(Config.load(DEFAULT_CONFIG_PATH));
+	}
+
+	public Launcher(Config config) {
+		this.config = config;
 		logger.info(config);
+		ThreadBuilder.setUseVirtualThread(config.useVirtualThread());
+		JsonParser.warmUp();
 	}
 
 	public void start() {
 		logger.info("Launcher started.");
 		if (isRunning)
 			return;
+		MetricsServer.start(config);
+		if (config.asyncLog()) {
+			RawFileLogger.setAsyncWriter(new AsyncLogWriter(config.asyncLogBufferSize(), config.asyncLogFlush(),
+					config.asyncLogFlushInterval(), config.asyncLogFsync(), config.asyncLogOverflow()));
+		}
 		GameStarter gameStarter = new GameStarter(socketQueue, config);
 		gameStarter.start();
 		if (config.isServer()) {
@@ -120,7 +132,7 @@ public class Launcher {
 		ServerSocket serverSocket = null;
 		try {
 			// サーバーソケットを指定されたポートで作成
-			serverSocket = new ServerSocket(config.serverPort());
+			serverSocket = Connection.openServerSocket(config, config.serverPort());
 		} catch (IOException e) {
 			logger.error("Exception", e);
 		}
@@ -209,7 +221,7 @@ public class Launcher {
 	}
 
 	private Socket getSocket(String hostname, int port) throws IOException {
-		Socket socket = new Socket(hostname, port);
+		Socket socket = Connection.openSocket(config, hostname, port);
 		logger.info(String.format("Socket connected: %s:%d", hostname, port));
 		try {
 			logger.info(String.format("Socket name: %s", getName(socket)));
@@ -282,21 +294,22 @@ public class Launcher {
 		BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
 		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
 
-		ExecutorService pool = Executors.newSingleThreadExecutor();
 		bufferedWriter.append(JsonParser.encode(new Packet(Request.NAME)));
 		bufferedWriter.append("\n");
 		bufferedWriter.flush();
 
-		CallableBufferedReader task = new CallableBufferedReader(bufferedReader);
-		Future<String> future = pool.submit(task);
-		String line = config.responseTimeout() > 0
-				? future.get(config.responseTimeout(), TimeUnit.MILLISECONDS)
-				: future.get();
-		if (!task.isSuccess()) {
-			throw task.getException();
+		// ポーリングせずにデータの到着までブロックし、タイムアウトはソケットに任せる
+		int soTimeout = socket.getSoTimeout();
+		socket.setSoTimeout(Math.max(config.responseTimeout(), 0));
+		try {
+			String line = bufferedReader.readLine();
+			if (line == null) {
+				throw new EOFException();
+			}
+			return line.isEmpty() ? null : line;
+		} finally {
+			socket.setSoTimeout(soTimeout);
 		}
-		pool.shutdown();
-		return line.isEmpty() ? null : line;
 	}
 
 	private String readLineFromSocket(Socket socket) throws IOException {
@@ -320,6 +333,7 @@ public class Launcher {
 		})));
 		removeLostConnections(lostMap);
 		cleanupEmptyEntries();
+		updateWaitingSockets();
 	}
 
 	private boolean isInvalidConnection(Pair<Long, Socket> socketPair, long currentTime, int deleteTime)
@@ -393,9 +407,21 @@ public class Launcher {
 			if (canStartGame) {
 				synchronized (socketQueue) {
 					socketQueue.add(new ArrayList<>(set));
+					Metrics.setSocketQueueLength(socketQueue.size());
 				}
 				iterator.remove();
 			}
 		}
+		updateWaitingSockets();
+	}
+
+	private void updateWaitingSockets() {
+		int count = 0;
+		for (Map<String, List<Pair<Long, Socket>>> map : waitingSockets.values()) {
+			for (List<Pair<Long, Socket>> list : map.values()) {
+				count += list.size();
+			}
+		}
+		Metrics.setWaitingSockets(count);
 	}
 }
\ No newline at end of file
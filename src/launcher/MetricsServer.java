@@ -0,0 +1,61 @@
+package launcher;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import core.Metrics;
+import core.model.Config;
+
+public class MetricsServer {
+	private static final Logger logger = LogManager.getLogger(MetricsServer.class);
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	public static void start(Config config) {
+		if (config.metricsPort() <= 0) {
+			return;
+		}
+		try {
+			// 外部には公開せず、ローカルからのスクレイプのみを受け付ける
+			HttpServer server = HttpServer.create(
+					new InetSocketAddress(InetAddress.getLoopbackAddress(), config.metricsPort()), 0);
+			server.createContext("/metrics", exchange -> handle(exchange, config));
+			// ゲームのスレッドとは別の単一スレッドで応答する
+			server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "MetricsServer");
+				thread.setDaemon(true);
+				return thread;
+			}));
+			server.start();
+			logger.info(String.format("Metrics server started: http://%s:%d/metrics",
+					server.getAddress().getHostString(), server.getAddress().getPort()));
+		} catch (IOException e) {
+			logger.error("Failed to start metrics server.", e);
+		}
+	}
+
+	private static void handle(HttpExchange exchange, Config config) throws IOException {
+		try (exchange) {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = Metrics.scrape(config.maxParallelExec()).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		}
+	}
+}
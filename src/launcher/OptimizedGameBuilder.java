@@ -19,6 +19,7 @@ import core.Connection;
 import core.Game;
 import core.GameData;
 import core.GameServer;
+import core.LatencyRecorder;
 import core.exception.DuplicateCombinationException;
 import core.exception.IllegalPlayerNumberException;
 import core.model.Agent;
@@ -27,12 +28,14 @@ import core.model.GameSetting;
 import core.model.Role;
 import libs.RawFileLogger;
 
-public class OptimizedGameBuilder extends Thread {
+public class OptimizedGameBuilder implements Runnable {
     private static final Logger logger = LogManager.getLogger(OptimizedGameBuilder.class);
 
     private final Config config;
     private final GameSetting gameSetting;
     private final Set<Connection> connections = new HashSet<>();
+    // このビルダーで実行したゲームの応答時間
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
     private final Map<Agent, Role> agentRoleMap = new HashMap<>();
 
     public OptimizedGameBuilder(Map<Socket, Role> sockets, Config config) throws IOException {
@@ -77,14 +80,18 @@ public class OptimizedGameBuilder extends Thread {
             }
             Game game = new Game(config, gameSetting, gameServer, gameData, agentRoleMap, rawFileLogger);
             game.start();
+            LatencyRecorder gameLatencyRecorder = gameServer.resetLatencyRecorder();
+            latencyRecorder.merge(gameLatencyRecorder);
+            LatencyRecorder.getTotal().merge(gameLatencyRecorder);
             if (config.saveLog()) {
                 Set<Entry<Agent, Connection>> newLostConnectionSet = connections.stream()
                         .filter(Connection::getHasException)
                         .collect(Collectors.toMap(Connection::getAgent, connection -> connection)).entrySet();
                 File file = new File(config.logDir(), String.format("%s_ERROR.log", gameName));
-                RawFileLogger logger = new RawFileLogger(file);
-                for (Entry<Agent, Connection> entry : newLostConnectionSet) {
-                    entry.getValue().printException(logger, entry.getKey(), agentRoleMap.get(entry.getKey()));
+                try (RawFileLogger logger = new RawFileLogger(file)) {
+                    for (Entry<Agent, Connection> entry : newLostConnectionSet) {
+                        entry.getValue().printException(logger, entry.getKey(), agentRoleMap.get(entry.getKey()));
+                    }
                 }
                 // エラー出力がなければエラーログファイルを削除
                 if (newLostConnectionSet.isEmpty()) {
@@ -103,6 +110,8 @@ public class OptimizedGameBuilder extends Thread {
             }
         }
 
+        // このビルダーで実行したゲームの応答時間 (name,request,count,p50,p90,p99,max,timeout,forceSkip)
+        latencyRecorder.summarize().forEach(line -> logger.info("Latency: " + line));
         logger.info("OptimizedGameBuilder finished.");
     }
 }
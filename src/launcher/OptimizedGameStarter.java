@@ -18,10 +18,12 @@ import java.util.Set;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import core.Connection;
 import core.model.Config;
 import core.model.Role;
 import libs.Pair;
 import utils.OptimizedAgentRole;
+import utils.ThreadBuilder;
 
 public class OptimizedGameStarter extends Thread {
     private static final Logger logger = LogManager.getLogger(OptimizedGameStarter.class);
@@ -201,7 +203,8 @@ public class OptimizedGameStarter extends Thread {
                         }
                         Role role = combination.get(pair);
                         try {
-                            Socket socket = new Socket(pair.key(), pair.value());
+                            Socket socket = Connection.openSocket(config, pair.key().getHostAddress(),
+                                    pair.value());
                             sockets.put(socket, role);
                             logger.info(String.format("Successfully created socket %s:%d", pair.key(), pair.value()));
                         } catch (IOException e) {
@@ -229,9 +232,9 @@ public class OptimizedGameStarter extends Thread {
                 }
                 OptimizedGameBuilder builder = new OptimizedGameBuilder(sockets, config);
                 combinations.remove(combination);
-                builder.start();
+                Thread thread = ThreadBuilder.start("OptimizedGameBuilder", builder);
                 logger.info("Started a new game with a group of sockets.");
-                builder.join();
+                thread.join();
                 appendFlagOptimizedCombinations(combination);
             } catch (Exception e) {
                 logger.error("Exception", e);
@@ -244,7 +247,7 @@ public class OptimizedGameStarter extends Thread {
     private Socket getDummySocket() {
         for (int socket = 30000; socket < 30005; socket++) {
             try {
-                return new Socket("127.0.0.1", socket);
+                return Connection.openSocket(config, "127.0.0.1", socket);
             } catch (IOException e) {
                 logger.error("Failed to create dummy socket", e);
             }
@@ -6,6 +6,10 @@ import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
 import core.model.Config;
+import libs.AsyncLogWriter;
+import libs.RawFileLogger;
+import utils.JsonParser;
+import utils.ThreadBuilder;
 
 public class OptimizedLauncher {
     private static final Logger logger = LogManager.getLogger(OptimizedLauncher.class);
@@ -26,6 +30,8 @@ public class OptimizedLauncher {
     public OptimizedLauncher() throws IOException, ReflectiveOperationException {
         this.config = Config.load(DEFAULT_CONFIG_PATH);
         logger.info(config);
+        ThreadBuilder.setUseVirtualThread(config.useVirtualThread());
+        JsonParser.warmUp();
     }
 
     public void start() {
@@ -43,6 +49,11 @@ public class OptimizedLauncher {
             logger.fatal("Parallel execution is not supported in OptimizedLauncher.");
             return;
         }
+        MetricsServer.start(config);
+        if (config.asyncLog()) {
+            RawFileLogger.setAsyncWriter(new AsyncLogWriter(config.asyncLogBufferSize(), config.asyncLogFlush(),
+                    config.asyncLogFlushInterval(), config.asyncLogFsync(), config.asyncLogOverflow()));
+        }
         new OptimizedGameStarter(config, config.continueCombinations()).start();
     }
 }
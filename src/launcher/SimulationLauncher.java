@@ -0,0 +1,245 @@
+package launcher;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import core.AgentStrategy;
+import core.Game;
+import core.GameData;
+import core.RandomStrategy;
+import core.SimulationServer;
+import core.model.Agent;
+import core.model.Config;
+import core.model.GameSetting;
+import core.model.Role;
+import core.model.Team;
+import utils.IniLoader;
+
+/**
+ * 接続を使わずに同じJVM上の戦略同士でゲームを繰り返し実行し、役職・陣営ごとの勝率を集計する。
+ * ゲームはForkJoinPool上で並列に実行し、ログとロールの組み合わせの出力は既定で無効にする。
+ * scaling=trueの場合は並列数を1から2倍ずつthreadsまで増やし、それぞれの1秒あたりのゲーム数を出力する。
+ *
+ * <pre>
+ * java -cp ./out:./lib/* launcher.SimulationLauncher [config=./config/Config.ini] [games=100000]
+ *     [threads=コア数] [strategy=core.RandomStrategy] [strategy.役職=クラス名 ...] [scaling=false] [log=false]
+ *     [設定項目=値 ...]
+ * </pre>
+ */
+public class SimulationLauncher {
+	private static final Logger logger = LogManager.getLogger(SimulationLauncher.class);
+
+	private static final String DEFAULT_CONFIG_PATH = "./config/Config.ini";
+	private static final String STRATEGY_PREFIX = "strategy.";
+
+	private final Config config;
+	private final GameSetting gameSetting;
+	private final Supplier<AgentStrategy> defaultStrategy;
+	private final Map<Role, Supplier<AgentStrategy>> roleStrategies;
+	private final List<Agent> agents = new ArrayList<>();
+	private final List<Role> roles = new ArrayList<>();
+
+	// 試合結果の集計
+	private static class Statistics {
+		private final LongAdder games = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final Map<Team, LongAdder> teamWins = new EnumMap<>(Team.class);
+		private final Map<Role, LongAdder> rolePlayed = new EnumMap<>(Role.class);
+		private final Map<Role, LongAdder> roleWins = new EnumMap<>(Role.class);
+
+		Statistics() {
+			for (Team team : Team.values()) {
+				teamWins.put(team, new LongAdder());
+			}
+			for (Role role : Role.values()) {
+				rolePlayed.put(role, new LongAdder());
+				roleWins.put(role, new LongAdder());
+			}
+		}
+
+		void print() {
+			long total = games.sum();
+			System.out.printf(Locale.ROOT, "games=%d errors=%d%n", total, errors.sum());
+			for (Team team : Team.values()) {
+				long wins = teamWins.get(team).sum();
+				if (wins > 0) {
+					System.out.printf(Locale.ROOT, "  team %-10s wins=%d (%.2f%%)%n", team, wins, percent(wins, total));
+				}
+			}
+			for (Role role : Role.values()) {
+				long played = rolePlayed.get(role).sum();
+				if (played > 0) {
+					long wins = roleWins.get(role).sum();
+					System.out.printf(Locale.ROOT, "  role %-10s played=%d wins=%d (%.2f%%)%n", role, played, wins,
+							percent(wins, played));
+				}
+			}
+		}
+
+		private static double percent(long count, long total) {
+			return total == 0 ? 0 : count * 100.0 / total;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>(Map.of(
+				"games", "100000",
+				"threads", String.valueOf(Runtime.getRuntime().availableProcessors()),
+				"strategy", RandomStrategy.class.getName(),
+				"scaling", "false",
+				"log", "false"));
+		Map<Role, String> roleStrategyNames = new EnumMap<>(Role.class);
+		Map<String, String> overrides = new HashMap<>();
+		String configPath = DEFAULT_CONFIG_PATH;
+		for (String arg : args) {
+			String[] pair = arg.split("=", 2);
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Invalid argument: " + arg);
+			}
+			if (pair[0].equals("config")) {
+				configPath = pair[1];
+			} else if (pair[0].startsWith(STRATEGY_PREFIX)) {
+				roleStrategyNames.put(Role.valueOf(pair[0].substring(STRATEGY_PREFIX.length())), pair[1]);
+			} else if (options.containsKey(pair[0])) {
+				options.put(pair[0], pair[1]);
+			} else {
+				overrides.put(pair[0], pair[1]);
+			}
+		}
+		if (!Boolean.parseBoolean(options.get("log"))) {
+			// ゲームの進行のログは出力せず、例外のみ出力する
+			Configurator.setRootLevel(Level.ERROR);
+		}
+		// 設定ファイルの内容に関わらずファイルへの出力は行わない
+		overrides.put("saveLog", "false");
+		overrides.put("saveRoleCombination", "false");
+		File file = new File(configPath);
+		Config config = IniLoader.override(file.exists() ? Config.load(file.getPath()) : new Config(), overrides,
+				Config.class);
+
+		Map<Role, Supplier<AgentStrategy>> roleStrategies = new EnumMap<>(Role.class);
+		roleStrategyNames.forEach((role, name) -> roleStrategies.put(role, createSupplier(name)));
+		SimulationLauncher launcher = new SimulationLauncher(config, createSupplier(options.get("strategy")),
+				roleStrategies);
+		launcher.start(Integer.parseInt(options.get("games")), Integer.parseInt(options.get("threads")),
+				Boolean.parseBoolean(options.get("scaling")));
+	}
+
+	private static Supplier<AgentStrategy> createSupplier(String className) {
+		try {
+			var constructor = Class.forName(className).asSubclass(AgentStrategy.class).getConstructor();
+			return () -> {
+				try {
+					return constructor.newInstance();
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Invalid strategy: " + className, e);
+		}
+	}
+
+	public SimulationLauncher(Config config, Supplier<AgentStrategy> defaultStrategy,
+			Map<Role, Supplier<AgentStrategy>> roleStrategies) {
+		this.config = config;
+		this.gameSetting = new GameSetting(config);
+		this.defaultStrategy = defaultStrategy;
+		this.roleStrategies = roleStrategies;
+		for (int i = 1; i <= gameSetting.getPlayerNum(); i++) {
+			agents.add(Agent.setAgent(i, "Sim" + i));
+		}
+		for (Role role : Role.values()) {
+			for (int i = 0; i < gameSetting.getRoleNum(role); i++) {
+				roles.add(role);
+			}
+		}
+	}
+
+	public void start(int games, int threads, boolean scaling) {
+		System.out.printf(Locale.ROOT, "players=%d games=%d threads=%d%n", agents.size(), games, threads);
+		// JITのウォームアップ
+		run(Math.min(games, 10_000), threads, new Statistics());
+
+		List<Integer> parallelisms = new ArrayList<>();
+		if (scaling) {
+			for (int parallelism = 1; parallelism < threads; parallelism *= 2) {
+				parallelisms.add(parallelism);
+			}
+		}
+		parallelisms.add(threads);
+		Statistics statistics = null;
+		double baseline = 0;
+		for (int parallelism : parallelisms) {
+			statistics = new Statistics();
+			long start = System.nanoTime();
+			run(games, parallelism, statistics);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			double rate = games / seconds;
+			if (baseline == 0) {
+				baseline = rate;
+			}
+			System.out.printf(Locale.ROOT, "threads=%3d elapsed=%8.2fs games/s=%12.1f speedup=%6.2fx%n", parallelism,
+					seconds, rate, rate / baseline);
+		}
+		statistics.print();
+	}
+
+	private void run(int games, int parallelism, Statistics statistics) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.submit(() -> IntStream.range(0, games).parallel().forEach(i -> play(statistics))).join();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void play(Statistics statistics) {
+		List<Role> shuffled = new ArrayList<>(roles);
+		Collections.shuffle(shuffled, ThreadLocalRandom.current());
+		Map<Agent, Role> roleMap = new HashMap<>();
+		Map<Agent, AgentStrategy> strategyMap = new HashMap<>();
+		for (int i = 0; i < agents.size(); i++) {
+			Agent agent = agents.get(i);
+			Role role = shuffled.get(i);
+			roleMap.put(agent, role);
+			strategyMap.put(agent, roleStrategies.getOrDefault(role, defaultStrategy).get());
+		}
+		try {
+			SimulationServer server = new SimulationServer(gameSetting, config, strategyMap);
+			Game game = new Game(config, gameSetting, server, new GameData(gameSetting), roleMap, null);
+			// ファイルへの出力と、全スレッドで共有するメトリクスの更新は行わない (メトリクスの公開先もない)
+			game.setAppendCombinations(false);
+			game.setUpdateMetrics(false);
+			game.start();
+			Team winner = game.getWinner();
+			statistics.games.increment();
+			statistics.teamWins.get(winner).increment();
+			roleMap.forEach((agent, role) -> {
+				statistics.rolePlayed.get(role).increment();
+				if (role.team == winner) {
+					statistics.roleWins.get(role).increment();
+				}
+			});
+		} catch (RuntimeException e) {
+			statistics.errors.increment();
+			logger.error("Exception", e);
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package libs;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+/**
+ * 全ゲームのRawFileLoggerへの書き込みを1つのスレッドでまとめて行う。
+ * ゲームのスレッドは有限長のリングバッファへ行を追加するだけで、ファイルの作成、書き込み、フラッシュ、fsyncは
+ * 書き込みスレッドがバッファから取り出した分ごとにまとめて行う。
+ * 生成時に書き込みスレッドを開始し、JVMの終了時にはバッファの残りを書き出してすべてのファイルを閉じる。
+ */
+public class AsyncLogWriter implements AutoCloseable {
+	private static final Logger logger = LogManager.getLogger(AsyncLogWriter.class);
+
+	// フラッシュの契機
+	public enum FlushPolicy {
+		// RawFileLogger.flush()の呼び出しごと (同期書き込みと同じ)
+		REQUEST,
+		// 一定時間ごと
+		INTERVAL,
+		// クローズ時のみ
+		CLOSE,
+	}
+
+	// fsyncの契機
+	public enum FsyncPolicy {
+		NONE, FLUSH, CLOSE,
+	}
+
+	// バッファが満杯の場合の動作
+	public enum OverflowPolicy {
+		// 空きができるまで待つ (書き込みスレッドの終了後や割り込まれた場合は破棄し、破棄した行数に数える)
+		BLOCK,
+		// 行を破棄し、破棄した行数を警告する
+		DROP,
+	}
+
+	// 一度に取り出す最大の件数
+	private static final int BATCH_SIZE = 1024;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	// 制御用の番兵 (参照で比較する)
+	private static final String FLUSH = new String();
+	private static final String CLOSE = new String();
+	private static final String STOP = new String();
+
+	private record Event(RawFileLogger target, String text) {
+	}
+
+	// 書き込みスレッドのみが参照するファイルごとの状態
+	private static class Sink {
+		private FileOutputStream outputStream;
+		private BufferedWriter writer;
+		private boolean isDirty = false;
+	}
+
+	private final BlockingQueue<Event> queue;
+	private final FlushPolicy flushPolicy;
+	private final long flushIntervalNanos;
+	private final FsyncPolicy fsyncPolicy;
+	private final OverflowPolicy overflowPolicy;
+	private final AtomicLong dropped = new AtomicLong();
+	private final Thread thread;
+	private final Thread shutdownHook;
+	private volatile boolean isClosed = false;
+
+	private final Map<RawFileLogger, Sink> sinks = new HashMap<>();
+	private long reportedDropped = 0;
+
+	public AsyncLogWriter(int capacity, FlushPolicy flushPolicy, long flushIntervalMillis, FsyncPolicy fsyncPolicy,
+			OverflowPolicy overflowPolicy) {
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.flushPolicy = flushPolicy;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(flushIntervalMillis, 1));
+		this.fsyncPolicy = fsyncPolicy;
+		this.overflowPolicy = overflowPolicy;
+		// 書き込み中のファイルがあってもJVMの終了を妨げず、終了時のフックで書き出す
+		this.thread = Thread.ofPlatform().name("AsyncLogWriter").daemon(true).start(this::run);
+		this.shutdownHook = new Thread(this::close, "AsyncLogWriter-Shutdown");
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	void append(RawFileLogger target, String text) {
+		Event event = new Event(target, text);
+		// 書き込みスレッドの終了後や割り込まれた場合に追加できなかった行も破棄した行として数える
+		boolean isAdded = overflowPolicy == OverflowPolicy.DROP ? !isClosed && queue.offer(event) : put(event);
+		if (!isAdded) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	void flush(RawFileLogger target) {
+		if (flushPolicy != FlushPolicy.REQUEST) {
+			return;
+		}
+		Event event = new Event(target, FLUSH);
+		// 破棄した場合もクローズ時にはフラッシュされる
+		if (overflowPolicy == OverflowPolicy.DROP) {
+			queue.offer(event);
+			return;
+		}
+		put(event);
+	}
+
+	void close(RawFileLogger target) {
+		// ファイルを閉じられなくなるため、破棄しない
+		put(new Event(target, CLOSE));
+	}
+
+	// 追加できた場合はtrueを返す
+	private boolean put(Event event) {
+		try {
+			while (!isClosed) {
+				// 書き込みスレッドの終了後に待ち続けないよう、一定時間ごとに確認する
+				if (queue.offer(event, 100, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	@Override
+	public void close() {
+		if (isClosed) {
+			return;
+		}
+		isClosed = true;
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// JVMの終了中 (終了時のフックからの呼び出しを含む)
+		}
+		try {
+			// 書き込みスレッドは番兵を受け取るまでの行を書き出してから終了する
+			queue.put(new Event(null, STOP));
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		List<Event> batch = new ArrayList<>(BATCH_SIZE);
+		Set<Sink> flushSinks = new LinkedHashSet<>();
+		long nextFlush = System.nanoTime() + flushIntervalNanos;
+		boolean isRunning = true;
+		while (isRunning) {
+			try {
+				Event event = flushPolicy == FlushPolicy.INTERVAL
+						? queue.poll(Math.max(nextFlush - System.nanoTime(), 0), TimeUnit.NANOSECONDS)
+						: queue.take();
+				if (event != null) {
+					batch.add(event);
+					queue.drainTo(batch, BATCH_SIZE - 1);
+				}
+			} catch (InterruptedException e) {
+				break;
+			}
+			for (Event event : batch) {
+				if (event.text() == STOP) {
+					isRunning = false;
+				} else {
+					handle(event, flushSinks);
+				}
+			}
+			batch.clear();
+			// 同じファイルへのフラッシュの要求は取り出した分ごとに1回にまとめる
+			for (Sink sink : flushSinks) {
+				flush(sink, fsyncPolicy == FsyncPolicy.FLUSH);
+			}
+			flushSinks.clear();
+			if (flushPolicy == FlushPolicy.INTERVAL && System.nanoTime() >= nextFlush) {
+				for (Sink sink : sinks.values()) {
+					flush(sink, fsyncPolicy == FsyncPolicy.FLUSH);
+				}
+				nextFlush = System.nanoTime() + flushIntervalNanos;
+			}
+			reportDropped();
+		}
+		// 終了の番兵より後に追加された行も書き出してから、開いているファイルをすべて閉じる
+		queue.drainTo(batch);
+		for (Event event : batch) {
+			if (event.text() != STOP) {
+				handle(event, flushSinks);
+			}
+		}
+		for (Sink sink : sinks.values()) {
+			close(sink);
+		}
+		sinks.clear();
+		reportDropped();
+	}
+
+	private void handle(Event event, Set<Sink> flushSinks) {
+		Sink sink = sinks.get(event.target());
+		if (event.text() == CLOSE) {
+			if (sink != null) {
+				sinks.remove(event.target());
+				close(sink);
+			}
+			return;
+		}
+		if (event.text() == FLUSH) {
+			if (sink != null) {
+				flushSinks.add(sink);
+			}
+			return;
+		}
+		if (sink == null) {
+			// 最初の行の書き込み時にファイルを作成する
+			sink = open(event.target().getFile());
+			sinks.put(event.target(), sink);
+		}
+		if (sink.writer == null) {
+			return;
+		}
+		try {
+			sink.writer.append(event.text());
+			sink.writer.append(System.lineSeparator());
+			sink.isDirty = true;
+		} catch (IOException e) {
+			logger.error("Exception", e);
+		}
+	}
+
+	private Sink open(File file) {
+		Sink sink = new Sink();
+		try {
+			file.getParentFile().mkdirs();
+			sink.outputStream = new FileOutputStream(file, true);
+			sink.writer = new BufferedWriter(new OutputStreamWriter(sink.outputStream), WRITE_BUFFER_SIZE);
+		} catch (IOException e) {
+			// 作成できなかったファイルへの行は破棄する
+			logger.error("Exception", e);
+		}
+		return sink;
+	}
+
+	private void flush(Sink sink, boolean fsync) {
+		if (sink.writer == null || !sink.isDirty) {
+			return;
+		}
+		try {
+			sink.writer.flush();
+			sink.isDirty = false;
+			if (fsync) {
+				sink.outputStream.getFD().sync();
+			}
+		} catch (IOException e) {
+			logger.error("Exception", e);
+		}
+	}
+
+	private void close(Sink sink) {
+		if (sink.writer == null) {
+			return;
+		}
+		try (BufferedWriter writer = sink.writer) {
+			writer.flush();
+			// 以前のフラッシュでfsyncしていない分も含めて同期する
+			if (fsyncPolicy != FsyncPolicy.NONE) {
+				sink.outputStream.getFD().sync();
+			}
+		} catch (IOException e) {
+			logger.error("Exception", e);
+		}
+		sink.writer = null;
+	}
+
+	private void reportDropped() {
+		long count = dropped.get();
+		if (count > reportedDropped) {
+			logger.warn(String.format("Dropped %d log lines because the buffer is full.", count - reportedDropped));
+			reportedDropped = count;
+		}
+	}
+}
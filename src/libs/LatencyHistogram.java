@@ -0,0 +1,83 @@
+package libs;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+	// 2のべき乗ごとの区間をさらに8等分して記録する (相対誤差は最大12.5%)
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> exponent) & (SUB_BUCKETS - 1);
+		return (exponent + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long lowerBoundOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS - 1;
+		return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << exponent;
+	}
+
+	public void record(long value) {
+		value = Math.max(value, 0);
+		counts.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long n = other.counts.get(i);
+			if (n > 0) {
+				counts.addAndGet(i, n);
+			}
+		}
+		count.addAndGet(other.count.get());
+		sum.addAndGet(other.sum.get());
+		max.accumulateAndGet(other.max.get(), Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getSum() {
+		return sum.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getPercentile(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max((long) Math.ceil(total * percentile / 100.0), 1);
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += counts.get(i);
+			if (cumulative >= rank) {
+				// 区間の上限を返す (記録された最大値は超えない)
+				long upperBound = i + 1 < BUCKETS ? lowerBoundOf(i + 1) - 1 : Long.MAX_VALUE;
+				return Math.min(upperBound, max.get());
+			}
+		}
+		return max.get();
+	}
+}
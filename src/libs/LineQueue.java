@@ -0,0 +1,77 @@
+package libs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 受信した行を読み出されるまで保持する。
+ * 受信側は読み出しを待たずにソケットから読み込むため、行数と1行の長さに上限を設け、
+ * 超えた場合は未読の行を破棄して終了する (以降の読み出しで例外を投げ、接続を切断させる)。
+ */
+public class LineQueue {
+	// 未読の行数の上限
+	public static final int CAPACITY = 1024;
+	// 1行の長さの上限 (改行を除く)
+	public static final int MAX_LINE_LENGTH = 1 << 20;
+
+	// 読み込みの終了を表す番兵 (参照で比較する)
+	private static final String EOF = new String();
+
+	// 番兵の分を空けておく
+	private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY + 1);
+	private volatile IOException exception = null;
+	private boolean isClosed = false;
+
+	/**
+	 * 行を追加する。終了後、または上限を超えた場合はfalseを返し、受信側は読み込みを終了する。
+	 */
+	public synchronized boolean add(String line) {
+		if (isClosed) {
+			return false;
+		}
+		if (queue.size() >= CAPACITY) {
+			queue.clear();
+			close(new IOException("Too many unread lines."));
+			return false;
+		}
+		queue.add(line);
+		return true;
+	}
+
+	public synchronized void close(IOException exception) {
+		// 最初の終了の理由を通知する
+		if (isClosed) {
+			return;
+		}
+		isClosed = true;
+		this.exception = exception;
+		queue.add(EOF);
+	}
+
+	public String poll(long timeout) throws IOException, InterruptedException, TimeoutException {
+		String line = timeout > 0 ? queue.poll(timeout, TimeUnit.MILLISECONDS) : queue.take();
+		if (line == null) {
+			throw new TimeoutException();
+		}
+		if (line == EOF) {
+			// 後続の呼び出しでも終了を検知できるよう番兵を戻す
+			queue.add(EOF);
+			throw exception != null ? exception : new EOFException();
+		}
+		return line;
+	}
+
+	public int clear() {
+		int count = 0;
+		String line;
+		while ((line = queue.peek()) != null && line != EOF) {
+			queue.poll();
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,79 @@
+package libs;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+public class QueuedBufferedReader implements Runnable {
+	private final BufferedReader bufferedReader;
+	private final LineQueue lineQueue = new LineQueue();
+	private final StringBuilder lineBuilder = new StringBuilder();
+	// 直前の文字がCRの場合は続くLFを読み飛ばす
+	private boolean skipLF = false;
+
+	public QueuedBufferedReader(BufferedReader bufferedReader) {
+		this.bufferedReader = bufferedReader;
+	}
+
+	public Thread start(String name) {
+		Thread thread = new Thread(this, name);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	@Override
+	public void run() {
+		IOException exception = null;
+		try {
+			String line;
+			while ((line = readLine()) != null) {
+				if (!lineQueue.add(line)) {
+					// 未読の行が上限を超えたため読み込みを終了する (TCPの流量制御で相手の送信も止まる)
+					break;
+				}
+			}
+		} catch (IOException e) {
+			exception = e;
+		} finally {
+			lineQueue.close(exception);
+		}
+	}
+
+	// BufferedReader.readLineと同じ区切りで読み込むが、1行の長さに上限を設ける
+	private String readLine() throws IOException {
+		int c;
+		while ((c = bufferedReader.read()) != -1) {
+			if (skipLF) {
+				skipLF = false;
+				if (c == '\n') {
+					continue;
+				}
+			}
+			if (c == '\n' || c == '\r') {
+				skipLF = c == '\r';
+				String line = lineBuilder.toString();
+				lineBuilder.setLength(0);
+				return line;
+			}
+			if (lineBuilder.length() >= LineQueue.MAX_LINE_LENGTH) {
+				throw new IOException("Line too long.");
+			}
+			lineBuilder.append((char) c);
+		}
+		if (lineBuilder.length() == 0) {
+			return null;
+		}
+		String line = lineBuilder.toString();
+		lineBuilder.setLength(0);
+		return line;
+	}
+
+	public String poll(long timeout) throws IOException, InterruptedException, TimeoutException {
+		return lineQueue.poll(timeout);
+	}
+
+	public int clear() {
+		return lineQueue.clear();
+	}
+}
@@ -11,14 +11,53 @@ import org.apache.log4j.Logger;
 public class RawFileLogger implements AutoCloseable {
 	private static final Logger logger = LogManager.getLogger(RawFileLogger.class);
 
+	// 非同期書き込みの共有スレッド (nullの場合は呼び出し元のスレッドで書き込む)
+	private static volatile AsyncLogWriter sharedWriter = null;
+
+	private final File file;
+	private final AsyncLogWriter asyncWriter;
 	private final BufferedWriter bufferedWriter;
+	// 非同期書き込みでクローズを要求した後か (同期書き込みではBufferedWriterが判定する)
+	private volatile boolean isClosed = false;
+
+	public static void setAsyncWriter(AsyncLogWriter asyncWriter) {
+		RawFileLogger.sharedWriter = asyncWriter;
+	}
 
 	public RawFileLogger(File file) throws IOException {
+		this(file, true);
+	}
+
+	/**
+	 * useAsyncWriter=falseの場合は非同期書き込みが有効でも呼び出し元のスレッドで書き込む。
+	 * 書き込んだ内容を直後に読み込む場合に使用する。
+	 */
+	public RawFileLogger(File file, boolean useAsyncWriter) throws IOException {
+		this.file = file;
+		this.asyncWriter = useAsyncWriter ? sharedWriter : null;
+		if (asyncWriter != null) {
+			// ファイルの作成も書き込みスレッドで行う
+			bufferedWriter = null;
+			return;
+		}
 		file.getParentFile().mkdirs();
 		bufferedWriter = new BufferedWriter(new FileWriter(file, true));
 	}
 
+	File getFile() {
+		return file;
+	}
+
 	public void log(String text) {
+		if (asyncWriter != null) {
+			// クローズ後の行で書き込みスレッドがファイルを開き直さないよう、キューに追加しない
+			if (isClosed) {
+				logger.warn("Discard a line logged after close: " + file);
+				return;
+			}
+			asyncWriter.append(this, text);
+			return;
+		}
 		try {
 			bufferedWriter.append(text);
 			bufferedWriter.append(System.lineSeparator());
@@ -28,6 +67,12 @@ public class RawFileLogger implements AutoCloseable {
 	}
 
 	public void flush() {
+		if (asyncWriter != null) {
+			if (!isClosed) {
+				asyncWriter.flush(this);
+			}
+			return;
+		}
 		try {
 			bufferedWriter.flush();
 		} catch (IOException e) {
@@ -37,6 +82,13 @@ public class RawFileLogger implements AutoCloseable {
 
 	@Override
 	public void close() {
+		if (asyncWriter != null) {
+			if (!isClosed) {
+				isClosed = true;
+				asyncWriter.close(this);
+			}
+			return;
+		}
 		try {
 			bufferedWriter.close();
 		} catch (IOException e) {
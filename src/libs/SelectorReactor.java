@@ -0,0 +1,266 @@
+package libs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
+public class SelectorReactor {
+	private static final Logger logger = LogManager.getLogger(SelectorReactor.class);
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private static SelectorReactor shared = null;
+
+	public interface LineHandler {
+		// falseを返した場合は読み込みを終了する (理由はハンドラ側で通知する)
+		boolean onLine(String line);
+
+		void onClose(IOException exception);
+	}
+
+	private final Loop[] loops;
+	private final AtomicInteger nextLoop = new AtomicInteger();
+
+	public static synchronized SelectorReactor getShared(int threads) {
+		if (shared == null) {
+			shared = new SelectorReactor(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+		}
+		return shared;
+	}
+
+	public SelectorReactor(int threads) {
+		loops = new Loop[threads];
+		for (int i = 0; i < threads; i++) {
+			try {
+				loops[i] = new Loop(Selector.open());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			Thread thread = new Thread(loops[i], "SelectorReactor-" + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	public Endpoint register(SocketChannel channel, LineHandler handler) throws IOException {
+		channel.configureBlocking(false);
+		Loop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+		Endpoint endpoint = new Endpoint(loop, channel, handler);
+		loop.pending.add(endpoint);
+		loop.selector.wakeup();
+		return endpoint;
+	}
+
+	public class Endpoint {
+		private final Loop loop;
+		private final SocketChannel channel;
+		private final LineHandler handler;
+		private final ReentrantLock writeLock = new ReentrantLock();
+		private final Semaphore writable = new Semaphore(0);
+		private volatile SelectionKey key = null;
+		// セレクタへの登録 (または登録前の切断) で解放される
+		private final CountDownLatch registered = new CountDownLatch(1);
+		private final AtomicBoolean isClosed = new AtomicBoolean(false);
+		// 改行までのバイト列を貯めるバッファ (接続ごとに再利用する)
+		private byte[] lineBuffer = new byte[256];
+		private int lineLength = 0;
+
+		private Endpoint(Loop loop, SocketChannel channel, LineHandler handler) {
+			this.loop = loop;
+			this.channel = channel;
+			this.handler = handler;
+		}
+
+		public void write(ByteBuffer buffer, long timeout) throws IOException {
+			writeLock.lock();
+			try {
+				while (buffer.hasRemaining()) {
+					if (isClosed.get()) {
+						throw new ClosedChannelException();
+					}
+					if (channel.write(buffer) > 0) {
+						continue;
+					}
+					if (key == null) {
+						// セレクタへの登録を待ってから書き込み可能の通知を依頼する
+						if (timeout <= 0) {
+							registered.await();
+						} else if (!registered.await(timeout, TimeUnit.MILLISECONDS)) {
+							throw new SocketTimeoutException("Write timed out");
+						}
+						continue;
+					}
+					// 送信バッファが一杯の場合は書き込み可能になるまでセレクタに待たせる
+					writable.drainPermits();
+					SelectionKey selectionKey = key;
+					if (selectionKey.isValid()) {
+						selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						loop.selector.wakeup();
+					}
+					if (timeout <= 0) {
+						writable.acquire();
+					} else if (!writable.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+						throw new SocketTimeoutException("Write timed out");
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			} finally {
+				writeLock.unlock();
+			}
+		}
+
+		public boolean isClosed() {
+			return isClosed.get();
+		}
+
+		public void close() throws IOException {
+			fail(null);
+			channel.close();
+		}
+
+		private void onWritable() {
+			key.interestOps(SelectionKey.OP_READ);
+			writable.release();
+		}
+
+		private void onRead(ByteBuffer readBuffer) {
+			byte[] array = readBuffer.array();
+			int start = 0;
+			int limit = readBuffer.limit();
+			for (int i = 0; i < limit; i++) {
+				if (array[i] == '\n') {
+					if (!append(array, start, i - start)) {
+						return;
+					}
+					int length = lineLength;
+					if (length > 0 && lineBuffer[length - 1] == '\r') {
+						length--;
+					}
+					lineLength = 0;
+					if (!handler.onLine(new String(lineBuffer, 0, length, StandardCharsets.UTF_8))) {
+						fail(null);
+						return;
+					}
+					start = i + 1;
+				}
+			}
+			append(array, start, limit - start);
+		}
+
+		private boolean append(byte[] array, int offset, int length) {
+			// 改行を送らないエージェントでバッファが際限なく伸びないよう、1行の長さに上限を設ける
+			if (lineLength + length > LineQueue.MAX_LINE_LENGTH + 1) {
+				fail(new IOException("Line too long."));
+				return false;
+			}
+			if (lineLength + length > lineBuffer.length) {
+				lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length * 2, lineLength + length));
+			}
+			System.arraycopy(array, offset, lineBuffer, lineLength, length);
+			lineLength += length;
+			return true;
+		}
+
+		private void fail(IOException exception) {
+			if (!isClosed.compareAndSet(false, true)) {
+				return;
+			}
+			SelectionKey selectionKey = key;
+			if (selectionKey != null) {
+				selectionKey.cancel();
+			}
+			writable.release();
+			registered.countDown();
+			handler.onClose(exception);
+		}
+	}
+
+	private static class Loop implements Runnable {
+		private final Selector selector;
+		private final Queue<Endpoint> pending = new ConcurrentLinkedQueue<>();
+		private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+		private Loop(Selector selector) {
+			this.selector = selector;
+		}
+
+		@Override
+		public void run() {
+			while (selector.isOpen()) {
+				try {
+					selector.select();
+					registerPending();
+					Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+					while (iterator.hasNext()) {
+						SelectionKey key = iterator.next();
+						iterator.remove();
+						Endpoint endpoint = (Endpoint) key.attachment();
+						try {
+							if (key.isValid() && key.isWritable()) {
+								endpoint.onWritable();
+							}
+							if (key.isValid() && key.isReadable()) {
+								read(endpoint);
+							}
+						} catch (CancelledKeyException e) {
+							// 別スレッドで切断済み
+						}
+					}
+				} catch (IOException e) {
+					logger.error("Exception", e);
+				}
+			}
+		}
+
+		private void registerPending() {
+			Endpoint endpoint;
+			while ((endpoint = pending.poll()) != null) {
+				try {
+					endpoint.key = endpoint.channel.register(selector, SelectionKey.OP_READ, endpoint);
+				} catch (ClosedChannelException e) {
+					endpoint.fail(e);
+				}
+				endpoint.registered.countDown();
+			}
+		}
+
+		private void read(Endpoint endpoint) {
+			readBuffer.clear();
+			int read;
+			try {
+				read = endpoint.channel.read(readBuffer);
+			} catch (IOException e) {
+				endpoint.fail(e);
+				return;
+			}
+			if (read < 0) {
+				endpoint.fail(null);
+				return;
+			}
+			readBuffer.flip();
+			endpoint.onRead(readBuffer);
+		}
+	}
+}
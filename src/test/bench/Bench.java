@@ -0,0 +1,90 @@
+package test.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import core.model.Config;
+import utils.IniLoader;
+
+/**
+ * ベンチマーク用の簡易ハーネス。
+ * ウォームアップの後に一定時間繰り返し実行し、1回あたりの時間と割り当てバイト数、GCの回数と時間を出力する。
+ * 割り当てバイト数は計測中に生存していた全スレッドの合計から求める。
+ */
+public class Bench {
+	private static final long WARMUP_NANOS = Long.getLong("bench.warmup", 2_000L) * 1_000_000L;
+	private static final long MEASURE_NANOS = Long.getLong("bench.measure", 2_000L) * 1_000_000L;
+	// 名前にこの文字列を含むベンチマークのみを実行する
+	private static final String FILTER = System.getProperty("bench.filter", "");
+
+	private static final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+
+	// JITによる結果の除去を防ぐ
+	private static volatile int sink;
+
+	public static void header() {
+		System.out.printf("%-36s %14s %12s %14s %8s %10s%n", "benchmark", "ops/s", "us/op", "B/op", "gc", "gc ms");
+	}
+
+	public static void report(String name, Callable<Object> task) throws Exception {
+		if (!name.contains(FILTER)) {
+			return;
+		}
+		// ウォームアップ
+		long end = System.nanoTime() + WARMUP_NANOS;
+		while (System.nanoTime() < end) {
+			consume(task.call());
+		}
+		long gcCount = getGcCount();
+		long gcMillis = getGcMillis();
+		long allocated = getAllocatedBytes();
+		long count = 0;
+		long start = System.nanoTime();
+		end = start + MEASURE_NANOS;
+		while (System.nanoTime() < end) {
+			consume(task.call());
+			count++;
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long bytes = getAllocatedBytes() - allocated;
+		System.out.printf("%-36s %,14.1f %12.2f %,14d %8d %10d%n", name, count / seconds, seconds * 1e6 / count,
+				bytes / count, getGcCount() - gcCount, getGcMillis() - gcMillis);
+	}
+
+	public static Config createConfig(Config base, Map<String, ?> overrides) {
+		return IniLoader.override(base, overrides, Config.class);
+	}
+
+	private static void consume(Object result) {
+		sink += System.identityHashCode(result);
+	}
+
+	private static long getAllocatedBytes() {
+		long total = 0;
+		for (long bytes : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+			if (bytes > 0) {
+				total += bytes;
+			}
+		}
+		return total;
+	}
+
+	private static long getGcCount() {
+		long total = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(bean.getCollectionCount(), 0);
+		}
+		return total;
+	}
+
+	private static long getGcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			total += Math.max(bean.getCollectionTime(), 0);
+		}
+		return total;
+	}
+}
@@ -0,0 +1,107 @@
+package test.bench;
+
+import java.util.List;
+import java.util.Locale;
+
+import core.GameData;
+import core.model.Agent;
+import core.model.GameSetting;
+import core.model.Role;
+import core.model.Status;
+import core.model.Talk;
+
+/**
+ * GameDataの1試合あたりのメモリ使用量とnextDayのコストを人数ごとに計測する。
+ * メモリ使用量は、全員を登録して1日に1名ずつ (生存者が2名になるまで) 追放しながら日を進めた
+ * 最終日のGameDataを多数保持し、GC後のヒープ使用量の差から求める (投票は含まない)。
+ * また日数を変えて、試合が長くなっても保持されるメモリが増えないことを確認する。
+ *
+ * <pre>
+ * java -cp ./out:./lib/* [-Dbench.warmup=2000] [-Dbench.measure=2000] test.bench.GameDataBenchmark
+ * </pre>
+ */
+public class GameDataBenchmark {
+	private static final int[] PLAYER_NUMS = { 5, 13, 18 };
+	private static final int[] DAYS = { 2, 8, 32 };
+	private static final int TALKS_PER_DAY = 20;
+	private static final int RETAINED_GAMES = 10_000;
+
+	private static final String TALK_TEXT = "私は占い師です。Agent[01]は人狼だと思います。皆さんはどう思いますか。";
+
+	public static void main(String[] args) throws Exception {
+		for (int playerNum : PLAYER_NUMS) {
+			System.out.printf(Locale.ROOT, "players=%d days=%d talks=0 retained=%,d B/game%n", playerNum,
+					playerNum / 2, measureRetainedBytes(playerNum, playerNum / 2, 0));
+		}
+		for (int days : DAYS) {
+			System.out.printf(Locale.ROOT, "players=13 days=%d talks=%d/day retained=%,d B/game%n", days,
+					TALKS_PER_DAY, measureRetainedBytes(13, days, TALKS_PER_DAY));
+		}
+		Bench.header();
+		for (int playerNum : PLAYER_NUMS) {
+			GameData gameData = createGameData(playerNum);
+			Bench.report(String.format("nextDay (%d players)", playerNum), gameData::nextDay);
+		}
+		for (int playerNum : PLAYER_NUMS) {
+			Bench.report(String.format("create game (%d players)", playerNum),
+					() -> createGame(playerNum, playerNum / 2, 0));
+		}
+	}
+
+	private static GameData createGameData(int playerNum) {
+		GameSetting gameSetting = new GameSetting(Role.DefaultMap(playerNum), 10, 20, 10, 20, 0, false, true,
+				true, 6000, 3000, 0, 0, false, false);
+		GameData gameData = new GameData(gameSetting);
+		int i = 0;
+		for (Role role : Role.values()) {
+			for (int n = 0; n < gameSetting.getRoleNum(role); n++) {
+				i++;
+				gameData.addAgent(Agent.setAgent(i, "agent" + i), Status.ALIVE, role);
+			}
+		}
+		return gameData;
+	}
+
+	// 指定した日数まで進めた最終日のGameData
+	private static GameData createGame(int playerNum, int days, int talksPerDay) {
+		GameData gameData = createGameData(playerNum);
+		for (int day = 0; day < days; day++) {
+			gameData = gameData.nextDay();
+			List<Agent> aliveAgents = gameData.getAliveAgents();
+			for (int t = 0; t < talksPerDay; t++) {
+				Agent agent = aliveAgents.get(t % aliveAgents.size());
+				gameData.addTalk(agent, new Talk(gameData.nextTalkIdx(), gameData.getDay(), t / aliveAgents.size(),
+						agent, TALK_TEXT));
+			}
+			if (aliveAgents.size() > 2) {
+				gameData.setExecutedTarget(aliveAgents.get(0));
+			}
+		}
+		return gameData;
+	}
+
+	private static long measureRetainedBytes(int playerNum, int days, int talksPerDay) {
+		// ウォームアップ
+		for (int i = 0; i < RETAINED_GAMES; i++) {
+			createGame(playerNum, days, talksPerDay);
+		}
+		long before = getUsedBytes();
+		GameData[] games = new GameData[RETAINED_GAMES];
+		for (int i = 0; i < games.length; i++) {
+			games[i] = createGame(playerNum, days, talksPerDay);
+		}
+		long after = getUsedBytes();
+		long bytes = (after - before) / games.length;
+		// 計測が終わるまで参照を保持する
+		games[0].getDay();
+		return bytes;
+	}
+
+	private static long getUsedBytes() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,100 @@
+package test.bench;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import core.GameData;
+import core.model.Agent;
+import core.model.Config;
+import core.model.GameInfo;
+import core.model.GameSetting;
+import core.model.Packet;
+import core.model.Request;
+import core.model.Role;
+import core.model.Status;
+import core.model.Talk;
+import core.model.Vote;
+import utils.JsonParser;
+
+/**
+ * 試合中盤を想定したパケットのエンコード/デコードのスループットを計測する。
+ * 毎回ObjectMapperを生成する旧実装と共有ObjectWriter/ObjectReaderを比較する。
+ * また文字列を経由した送信とストリームへの直接書き込みを比較する。
+ *
+ * <pre>
+ * java -cp ./out:./lib/* test.bench.JsonParserBenchmark [playerNum] [talkNum]
+ * </pre>
+ */
+public class JsonParserBenchmark {
+	public static void main(String[] args) throws Exception {
+		int playerNum = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+		int talkNum = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		JsonParser.warmUp();
+
+		GameData gameData = createGameData(playerNum, talkNum);
+		Agent agent = Agent.getAgent(1);
+		Packet initialize = new Packet(Request.INITIALIZE, gameData.getGameInfo(agent),
+				new GameSetting(Role.DefaultMap(playerNum), 5, 20, 5, 20, 0, false, true, true, 6000, 3000, 0, 0,
+						false, false));
+		Packet vote = new Packet(Request.VOTE, gameData.getGameInfo(agent));
+		Packet talk = new Packet(Request.TALK, gameData.getTalkList().subList(talkNum - playerNum, talkNum),
+				null);
+		System.out.printf("players=%d talks=%d INITIALIZE=%dB VOTE=%dB TALK=%dB%n", playerNum, talkNum,
+				JsonParser.encode(initialize).length(), JsonParser.encode(vote).length(),
+				JsonParser.encode(talk).length());
+		Bench.header();
+
+		for (Packet packet : new Packet[] { initialize, vote, talk }) {
+			Bench.report("encode " + packet.request() + " (before)", () -> new ObjectMapper().writeValueAsString(packet));
+			Bench.report("encode " + packet.request() + " (after)", () -> JsonParser.encode(packet));
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(buffer));
+		for (Packet packet : new Packet[] { initialize, vote, talk }) {
+			Bench.report("write " + packet.request() + " (string)", () -> {
+				buffer.reset();
+				bufferedWriter.append(JsonParser.encode(packet));
+				bufferedWriter.append("\n");
+				bufferedWriter.flush();
+				return buffer;
+			});
+			Bench.report("write " + packet.request() + " (stream)", () -> {
+				buffer.reset();
+				JsonParser.write(buffer, packet);
+				buffer.write('\n');
+				return buffer;
+			});
+		}
+		Bench.report("decode Agent (before)", () -> new ObjectMapper().readValue("\"Agent[03]\"", Agent.class));
+		Bench.report("decode Agent (after)", () -> JsonParser.decode("Agent[03]", Agent.class));
+	}
+
+	static GameData createGameData(int playerNum, int talkNum) {
+		GameSetting gameSetting = new GameSetting(Role.DefaultMap(playerNum), talkNum, 20, 5, 20, 0, false, true,
+				true, 6000, 3000, 0, 0, false, false);
+		GameData gameData = new GameData(gameSetting);
+		int i = 0;
+		for (Role role : Role.values()) {
+			for (int n = 0; n < gameSetting.getRoleNum(role); n++) {
+				i++;
+				gameData.addAgent(Agent.setAgent(i, "agent" + i), Status.ALIVE, role);
+			}
+		}
+		gameData = gameData.nextDay();
+		for (int t = 0; t < talkNum; t++) {
+			Agent agent = Agent.getAgent(t % playerNum + 1);
+			Talk talk = new Talk(gameData.nextTalkIdx(), gameData.getDay(), t / playerNum, agent,
+					String.format(">>Agent[%02d] 私は占い師です。Agent[%02d]は人狼だと思います。", t % playerNum + 1,
+							(t + 3) % playerNum + 1));
+			gameData.addTalk(agent, talk);
+		}
+		for (int v = 1; v <= playerNum; v++) {
+			gameData.addVote(new Vote(gameData.getDay(), Agent.getAgent(v), Agent.getAgent(v % playerNum + 1)));
+		}
+		gameData.setLatestVoteList(gameData.getVotes());
+		return gameData;
+	}
+}
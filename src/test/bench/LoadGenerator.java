@@ -0,0 +1,252 @@
+package test.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import core.LatencyRecorder;
+import core.Metrics;
+import core.model.Config;
+import core.model.Request;
+import launcher.Launcher;
+import libs.LatencyHistogram;
+
+/**
+ * 1つのJVM上でN体の合成エージェントを動かしてサーバに負荷をかける。
+ * isServer=trueの場合はserverPortへ接続し (acceptClients)、falseの場合はagentAddressesのポートで待ち受ける
+ * (connectToPlayerServer)。launcher=trueの場合は同じJVMでLauncherを起動し、サーバ側の応答時間から
+ * エージェントの思考時間を引いた1リクエストあたりのオーバーヘッドも出力する。
+ *
+ * <pre>
+ * java -cp ./out:./lib/* test.bench.LoadGenerator [config=./config/Config.ini] [agents=5]
+ *     [latency=fixed:0|uniform:MIN:MAX|exp:MEAN] [talkLength=0] [duration=60] [launcher=true] [設定項目=値 ...]
+ * </pre>
+ */
+public class LoadGenerator {
+	private static final long REPORT_INTERVAL_MILLIS = 10_000L;
+
+	private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+	private final Config config;
+	private final int agentNum;
+	private final LongSupplier latency;
+	private final int talkLength;
+
+	// エージェント側の集計
+	private final LongAdder responses = new LongAdder();
+	private final LongAdder thinkNanos = new LongAdder();
+	private final LongAdder finishes = new LongAdder();
+
+	private volatile boolean isRunning = true;
+
+	private class SyntheticAgent extends StubAgent {
+		SyntheticAgent(Socket socket, String name, long seed) {
+			super(socket, name, seed, talkLength);
+		}
+
+		@Override
+		public String respond(String line) throws IOException {
+			String response = super.respond(line);
+			if ("FINISH".equals(lastRequest)) {
+				finishes.increment();
+			}
+			if (response == null || "NAME".equals(lastRequest)) {
+				return response;
+			}
+			long start = System.nanoTime();
+			long millis = latency.getAsLong();
+			if (millis > 0) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			thinkNanos.add(System.nanoTime() - start);
+			responses.increment();
+			return response;
+		}
+	}
+
+	public LoadGenerator(Config config, int agentNum, LongSupplier latency, int talkLength) {
+		this.config = config;
+		this.agentNum = agentNum;
+		this.latency = latency;
+		this.talkLength = talkLength;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>(Map.of(
+				"config", "./config/Config.ini",
+				"latency", "fixed:0",
+				"talkLength", "0",
+				"duration", "60",
+				"launcher", "true"));
+		Map<String, String> overrides = new HashMap<>();
+		for (String arg : args) {
+			String[] pair = arg.split("=", 2);
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Invalid argument: " + arg);
+			}
+			if (options.containsKey(pair[0]) || pair[0].equals("agents")) {
+				options.put(pair[0], pair[1]);
+			} else {
+				overrides.put(pair[0], pair[1]);
+			}
+		}
+		File file = new File(options.get("config"));
+		Config base = file.exists() ? Config.load(file.getPath()) : new Config();
+		Config config = Bench.createConfig(base, overrides);
+		int agentNum = options.containsKey("agents") ? Integer.parseInt(options.get("agents"))
+				: config.isServer() ? config.connectAgentNum() : getAgentAddresses(config).length;
+
+		LoadGenerator generator = new LoadGenerator(config, agentNum, parseLatency(options.get("latency")),
+				Integer.parseInt(options.get("talkLength")));
+		generator.run(Long.parseLong(options.get("duration")) * 1000L, Boolean.parseBoolean(options.get("launcher")));
+		System.exit(0);
+	}
+
+	static LongSupplier parseLatency(String spec) {
+		// 思考時間の分布 (ミリ秒)
+		String[] parts = spec.split(":");
+		return switch (parts[0]) {
+			case "fixed" -> {
+				long millis = Long.parseLong(parts[1]);
+				yield () -> millis;
+			}
+			case "uniform" -> {
+				long min = Long.parseLong(parts[1]);
+				long max = Long.parseLong(parts[2]);
+				yield () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+			}
+			case "exp" -> {
+				double mean = Double.parseDouble(parts[1]);
+				yield () -> (long) (-mean * Math.log(1.0 - ThreadLocalRandom.current().nextDouble()));
+			}
+			default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+		};
+	}
+
+	private static String[] getAgentAddresses(Config config) {
+		return config.agentAddresses().replace("[", "").replace("]", "").split(",\\s*");
+	}
+
+	public void run(long durationMillis, boolean withLauncher) throws Exception {
+		System.out.printf("agents=%d mode=%s maxParallelExec=%d launcher=%s%n", agentNum,
+				config.isServer() ? "connect" : "listen", config.maxParallelExec(), withLauncher);
+		// 待ち受けを先に開始してからLauncherを起動する
+		if (config.isServer()) {
+			for (int i = 0; i < agentNum; i++) {
+				int idx = i;
+				startDaemon("LoadAgent-" + i, () -> connectLoop(idx));
+			}
+		} else {
+			String[] addresses = getAgentAddresses(config);
+			for (int i = 0; i < agentNum; i++) {
+				int port = Integer.parseInt(addresses[i % addresses.length].split(":")[1]);
+				ServerSocket serverSocket = new ServerSocket();
+				serverSocket.setReuseAddress(true);
+				serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+				int idx = i;
+				startDaemon("LoadAgent-" + i, () -> acceptLoop(idx, serverSocket));
+			}
+		}
+		if (withLauncher) {
+			Launcher launcher = new Launcher(config);
+			startDaemon("Launcher", launcher::start);
+		}
+
+		long start = System.currentTimeMillis();
+		long end = start + durationMillis;
+		while (System.currentTimeMillis() < end) {
+			Thread.sleep(Math.min(REPORT_INTERVAL_MILLIS, Math.max(end - System.currentTimeMillis(), 1)));
+			report(System.currentTimeMillis() - start, withLauncher);
+		}
+		isRunning = false;
+	}
+
+	private void connectLoop(int idx) {
+		String host = InetAddress.getLoopbackAddress().getHostAddress();
+		while (isRunning) {
+			try (Socket socket = new Socket(host, config.serverPort())) {
+				// ゲームの終了でサーバから切断されたら再接続する
+				new SyntheticAgent(socket, "load" + idx, idx).run();
+			} catch (IOException e) {
+				sleep(100);
+			}
+		}
+	}
+
+	private void acceptLoop(int idx, ServerSocket serverSocket) {
+		int count = 0;
+		while (isRunning) {
+			try {
+				Socket socket = serverSocket.accept();
+				startDaemon("LoadAgent-" + idx + "-" + (++count),
+						new SyntheticAgent(socket, "load" + idx, (long) idx << 32 | count));
+			} catch (IOException e) {
+				sleep(100);
+			}
+		}
+	}
+
+	private void report(long elapsedMillis, boolean withLauncher) {
+		double minutes = elapsedMillis / 60_000.0;
+		long count = responses.sum();
+		double think = count == 0 ? 0 : thinkNanos.sum() / 1e6 / count;
+		StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "[%4ds] threads=%d (peak %d)",
+				TimeUnit.MILLISECONDS.toSeconds(elapsedMillis), threadMXBean.getThreadCount(),
+				threadMXBean.getPeakThreadCount()));
+		if (withLauncher) {
+			// サーバ側の値は終了したゲームの集計のみ
+			long games = Metrics.getGamesCompleted();
+			long serverCount = 0;
+			long serverMicros = 0;
+			LatencyRecorder recorder = LatencyRecorder.getTotal();
+			for (String name : recorder.getNames()) {
+				for (Request request : Request.values()) {
+					LatencyHistogram histogram = recorder.getHistogram(name, request);
+					if (histogram != null) {
+						serverCount += histogram.getCount();
+						serverMicros += histogram.getSum();
+					}
+				}
+			}
+			double server = serverCount == 0 ? 0 : serverMicros / 1e3 / serverCount;
+			sb.append(String.format(Locale.ROOT,
+					" games=%d (%.1f/min) running=%d requests=%d server=%.2fms think=%.2fms overhead=%.2fms",
+					games, games / minutes, Metrics.getGamesRunning(), serverCount, server, think, server - think));
+		} else {
+			long games = finishes.sum() / Math.max(config.battleAgentNum(), 1);
+			sb.append(String.format(Locale.ROOT, " games=%d (%.1f/min) requests=%d think=%.2fms", games,
+					games / minutes, count, think));
+		}
+		System.out.println(sb);
+	}
+
+	private static void startDaemon(String name, Runnable runnable) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
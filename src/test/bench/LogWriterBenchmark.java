@@ -0,0 +1,81 @@
+package test.bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+
+import libs.AsyncLogWriter;
+import libs.AsyncLogWriter.FlushPolicy;
+import libs.AsyncLogWriter.FsyncPolicy;
+import libs.AsyncLogWriter.OverflowPolicy;
+import libs.RawFileLogger;
+
+/**
+ * 対戦ログの書き込みにおけるゲームのスレッド側の時間を計測する。
+ * 1回の操作は並列に実行中のゲームの1日分 (20行の書き込みとフラッシュ) で、開いたままの複数のファイルへ順に書き込む。
+ * 同期書き込みと、AsyncLogWriterのfsyncの設定ごとに比較する。
+ * 非同期の場合はバッファが満杯になると書き込みスレッドを待つため、書き込みスレッドより速くはならない。
+ *
+ * <pre>
+ * java -cp ./out:./lib/* [-Dbench.filter=async] test.bench.LogWriterBenchmark [games=16]
+ * </pre>
+ */
+public class LogWriterBenchmark {
+	private static final int LINES_PER_DAY = 20;
+	private static final String LINE = "1,talk,3,0,2,私は占い師です。Agent[01]は人狼だと思います。皆さんはどう思いますか。";
+
+	// 計測ごとに別のファイルへ書き込む
+	private static int runCount = 0;
+
+	public static void main(String[] args) throws Exception {
+		int gameNum = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		File dir = Files.createTempDirectory("aiwolf-log").toFile();
+		System.out.printf("games=%d dir=%s%n", gameNum, dir);
+		Bench.header();
+		try {
+			report("RawFileLogger (sync)", dir, gameNum, null);
+			for (FsyncPolicy fsyncPolicy : FsyncPolicy.values()) {
+				report("RawFileLogger (async, fsync=" + fsyncPolicy + ")", dir, gameNum,
+						new AsyncLogWriter(65536, FlushPolicy.REQUEST, 1000, fsyncPolicy, OverflowPolicy.BLOCK));
+			}
+		} finally {
+			for (File file : dir.listFiles()) {
+				file.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	private static void report(String name, File dir, int gameNum, AsyncLogWriter asyncWriter) throws Exception {
+		RawFileLogger.setAsyncWriter(asyncWriter);
+		runCount++;
+		RawFileLogger[] loggers = new RawFileLogger[gameNum];
+		for (int i = 0; i < gameNum; i++) {
+			loggers[i] = new RawFileLogger(new File(dir, String.format("%d_%03d.log", runCount, i)));
+		}
+		try {
+			Bench.report(name, createTask(loggers));
+		} finally {
+			for (RawFileLogger logger : loggers) {
+				logger.close();
+			}
+			if (asyncWriter != null) {
+				// 残りを書き出してから次の計測に移る
+				asyncWriter.close();
+			}
+			RawFileLogger.setAsyncWriter(null);
+		}
+	}
+
+	private static Callable<Object> createTask(RawFileLogger[] loggers) {
+		int[] next = { 0 };
+		return () -> {
+			RawFileLogger logger = loggers[next[0]++ % loggers.length];
+			for (int i = 0; i < LINES_PER_DAY; i++) {
+				logger.log(LINE);
+			}
+			logger.flush();
+			return logger;
+		};
+	}
+}
@@ -0,0 +1,137 @@
+package test.bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import libs.QueuedBufferedReader;
+
+/**
+ * ループバック上のエコーエージェントに対して1リクエストあたりのサーバ側オーバーヘッドを計測する。
+ * 旧実装 (リクエスト毎のExecutorと10msポーリング) と現在のキュー読み込みを比較する。
+ *
+ * <pre>
+ * java -cp ./out:./lib/* test.bench.ReadLatencyBenchmark [iterations] [agentDelayMillis]
+ * </pre>
+ */
+public class ReadLatencyBenchmark {
+	private static final long TIMEOUT = 3000;
+
+	private interface Reader {
+		String read(BufferedReader bufferedReader) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		long agentDelay = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			Thread echo = new Thread(() -> echo(serverSocket, agentDelay), "EchoAgent");
+			echo.setDaemon(true);
+			echo.start();
+
+			report("polling (before)", measure(serverSocket, iterations, false));
+			report("queued (after)", measure(serverSocket, iterations, true));
+		}
+	}
+
+	private static long[] measure(ServerSocket serverSocket, int iterations, boolean queued)
+			throws Exception {
+		try (Socket socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort())) {
+			BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+			Reader reader = ReadLatencyBenchmark::pollingRead;
+			if (queued) {
+				QueuedBufferedReader queuedReader = new QueuedBufferedReader(bufferedReader);
+				queuedReader.start("BenchReader");
+				reader = br -> queuedReader.poll(TIMEOUT);
+			}
+			// ウォームアップ
+			for (int i = 0; i < iterations / 10; i++) {
+				roundTrip(bufferedWriter, bufferedReader, reader);
+			}
+			long[] samples = new long[iterations];
+			for (int i = 0; i < iterations; i++) {
+				samples[i] = roundTrip(bufferedWriter, bufferedReader, reader);
+			}
+			return samples;
+		}
+	}
+
+	private static long roundTrip(BufferedWriter bufferedWriter, BufferedReader bufferedReader, Reader reader)
+			throws Exception {
+		long start = System.nanoTime();
+		bufferedWriter.append("{\"request\":\"TALK\"}");
+		bufferedWriter.append("\n");
+		bufferedWriter.flush();
+		String line = reader.read(bufferedReader);
+		if (line == null) {
+			throw new IOException("No response");
+		}
+		return System.nanoTime() - start;
+	}
+
+	// 旧CallableBufferedReaderと同じ読み込み方
+	private static String pollingRead(BufferedReader bufferedReader) throws Exception {
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> future = pool.submit(() -> {
+				while (true) {
+					if (bufferedReader.ready()) {
+						return bufferedReader.readLine();
+					}
+					Thread.sleep(10);
+				}
+			});
+			return future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static void echo(ServerSocket serverSocket, long agentDelay) {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				Thread thread = new Thread(() -> {
+					try (socket;
+							BufferedReader bufferedReader = new BufferedReader(
+									new InputStreamReader(socket.getInputStream()));
+							BufferedWriter bufferedWriter = new BufferedWriter(
+									new OutputStreamWriter(socket.getOutputStream()))) {
+						while (bufferedReader.readLine() != null) {
+							if (agentDelay > 0) {
+								Thread.sleep(agentDelay);
+							}
+							bufferedWriter.append("Over\n");
+							bufferedWriter.flush();
+						}
+					} catch (IOException | InterruptedException e) {
+						// 計測終了時の切断
+					}
+				});
+				thread.setDaemon(true);
+				thread.start();
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private static void report(String name, long[] samples) {
+		Arrays.sort(samples);
+		double mean = Arrays.stream(samples).average().orElse(0) / 1000.0;
+		System.out.printf("%-18s n=%d mean=%.1fus p50=%.1fus p99=%.1fus max=%.1fus%n", name, samples.length, mean,
+				samples[samples.length / 2] / 1000.0, samples[(int) (samples.length * 0.99)] / 1000.0,
+				samples[samples.length - 1] / 1000.0);
+	}
+}
@@ -0,0 +1,163 @@
+package test.bench;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import core.Connection;
+import core.Game;
+import core.GameData;
+import core.GameServer;
+import core.InMemoryTransport;
+import core.VoteCounter;
+import core.model.Agent;
+import core.model.Config;
+import core.model.GameSetting;
+import core.model.Packet;
+import core.model.Request;
+import core.model.Role;
+import core.model.Vote;
+import libs.Counter;
+import utils.JsonParser;
+
+/**
+ * サーバのホットパスを計測する。
+ * 試合中盤のGameDataに対するエンコード、getGameInfo、nextDay、生存者の取得、投票の集計と、
+ * スタブエージェントを相手にしたGame.start()全体 (ループバック、InMemoryTransport) を対象とする。
+ *
+ * <pre>
+ * make bench
+ * java -cp ./out:./lib/* [-Dbench.warmup=2000] [-Dbench.measure=2000] [-Dbench.filter=Game] test.bench.ServerBenchmark [playerNum] [talkNum]
+ * </pre>
+ */
+public class ServerBenchmark {
+	public static void main(String[] args) throws Exception {
+		int playerNum = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+		int talkNum = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		JsonParser.warmUp();
+		System.out.printf("players=%d talks=%d%n", playerNum, talkNum);
+		Bench.header();
+
+		// 1日目の議論と投票を終え、1名を追放した状態
+		GameData gameData = JsonParserBenchmark.createGameData(playerNum, talkNum);
+		gameData.setExecutedTarget(Agent.getAgent(playerNum));
+		Agent agent = Agent.getAgent(1);
+		Packet vote = new Packet(Request.VOTE, gameData.getGameInfo(agent));
+		Packet talk = new Packet(Request.TALK, gameData.getTalkList().subList(talkNum - playerNum, talkNum), null);
+
+		Bench.report("encode VOTE", () -> JsonParser.encode(vote));
+		Bench.report("encode TALK", () -> JsonParser.encode(talk));
+		Bench.report("getGameInfo (cached)", () -> gameData.getGameInfo(agent));
+		Bench.report("getGameInfo (rebuild)", () -> {
+			// キャッシュを無効化してから生成する
+			gameData.setAttackedTarget(null);
+			return gameData.getGameInfo(agent);
+		});
+		Bench.report("getGameInfo (all agents)", () -> {
+			gameData.setAttackedTarget(null);
+			Object last = null;
+			for (Agent target : gameData.getAgents()) {
+				last = gameData.getGameInfo(target);
+			}
+			return last;
+		});
+		Bench.report("nextDay", gameData::nextDay);
+		Bench.report("getAliveAgents", gameData::getAliveAgents);
+		Bench.report("getAliveWolfs", gameData::getAliveWolfs);
+
+		List<Vote> votes = createVotes(gameData);
+		Bench.report("Counter.getLargest (votes)", () -> {
+			Counter<Agent> counter = new Counter<>();
+			for (Vote v : votes) {
+				counter.add(v.target());
+			}
+			return counter.getLargest();
+		});
+		VoteCounter voteCounter = new VoteCounter();
+		Bench.report("VoteCounter.getLargestList (votes)", () -> {
+			voteCounter.clear();
+			for (Vote v : votes) {
+				voteCounter.add(v.target());
+			}
+			return voteCounter.getLargestList();
+		});
+
+		Bench.report("Game.start (socket)", createGameTask(createSocketConnections()));
+		Bench.report("Game.start (in-memory)", createGameTask(createInMemoryConnections(false)));
+		Bench.report("Game.start (in-memory, encoded)", createGameTask(createInMemoryConnections(true)));
+	}
+
+	private static List<Vote> createVotes(GameData gameData) {
+		Random random = new Random(0);
+		List<Agent> alive = gameData.getAliveAgents();
+		List<Vote> votes = new ArrayList<>();
+		for (Agent voter : alive) {
+			votes.add(new Vote(gameData.getDay(), voter, alive.get(random.nextInt(alive.size()))));
+		}
+		return votes;
+	}
+
+	private static Config createConfig() {
+		return Bench.createConfig(new Config(), Map.of("saveLog", false, "saveRoleCombination", false));
+	}
+
+	private static Set<Connection> createSocketConnections() throws Exception {
+		Config config = createConfig();
+		ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		Set<Connection> connections = new HashSet<>();
+		Set<Integer> usedNumberSet = new HashSet<>();
+		for (int i = 0; i < config.battleAgentNum(); i++) {
+			Socket client = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+			Thread thread = new Thread(new StubAgent(client, "stub" + i, i), "StubAgent-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			Connection connection = new Connection(serverSocket.accept(), config, usedNumberSet);
+			usedNumberSet.add(connection.getAgent().idx);
+			connections.add(connection);
+		}
+		serverSocket.close();
+		return connections;
+	}
+
+	private static Set<Connection> createInMemoryConnections(boolean encode) {
+		Config config = createConfig();
+		Set<Connection> connections = new HashSet<>();
+		Set<Integer> usedNumberSet = new HashSet<>();
+		for (int i = 0; i < config.battleAgentNum(); i++) {
+			InMemoryTransport transport = new InMemoryTransport(16, encode, config.responseTimeout());
+			Thread thread = new Thread(new StubAgent(transport.getEndpoint(), "stub" + i, i), "StubAgent-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			Connection connection = new Connection(transport, config, usedNumberSet);
+			usedNumberSet.add(connection.getAgent().idx);
+			connections.add(connection);
+		}
+		return connections;
+	}
+
+	private static Callable<Object> createGameTask(Set<Connection> connections) {
+		Config config = createConfig();
+		GameSetting gameSetting = new GameSetting(config);
+		GameServer gameServer = new GameServer(gameSetting, config, connections);
+		Role[] roles = { Role.SEER, Role.POSSESSED, Role.WEREWOLF, Role.VILLAGER, Role.VILLAGER };
+		Map<Agent, Role> agentRoleMap = new HashMap<>();
+		int i = 0;
+		for (Connection connection : connections) {
+			agentRoleMap.put(connection.getAgent(), roles[i++ % roles.length]);
+		}
+		return () -> {
+			Game game = new Game(config, gameSetting, gameServer, new GameData(gameSetting), agentRoleMap, null);
+			game.setAppendCombinations(false);
+			game.start();
+			return game;
+		};
+	}
+}
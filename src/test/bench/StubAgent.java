@@ -0,0 +1,159 @@
+package test.bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import core.InMemoryTransport;
+
+/**
+ * ベンチマーク用のスタブエージェント。
+ * 受け取ったパケットの状態だけを保持し、生存者からランダムに対象を選んで即座に応答する。
+ */
+public class StubAgent implements Runnable {
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final String TALK_TEXT = "私は占い師です。Agent[01]は人狼だと思います。皆さんはどう思いますか。";
+
+	private final Socket socket;
+	private final InMemoryTransport.Endpoint endpoint;
+	private final String name;
+	private final Random random;
+	// 発話の文字数 (0の場合は短い定型文)
+	private final int talkLength;
+
+	private final List<String> aliveAgents = new ArrayList<>();
+	private String me = null;
+	private int talkCount = 0;
+	protected String lastRequest = null;
+
+	public StubAgent(Socket socket, String name, long seed) {
+		this(socket, name, seed, 0);
+	}
+
+	public StubAgent(Socket socket, String name, long seed, int talkLength) {
+		this(socket, null, name, seed, talkLength);
+	}
+
+	public StubAgent(InMemoryTransport.Endpoint endpoint, String name, long seed) {
+		this(null, endpoint, name, seed, 0);
+	}
+
+	private StubAgent(Socket socket, InMemoryTransport.Endpoint endpoint, String name, long seed, int talkLength) {
+		this.socket = socket;
+		this.endpoint = endpoint;
+		this.name = name;
+		this.random = new Random(seed);
+		this.talkLength = talkLength;
+	}
+
+	@Override
+	public void run() {
+		if (endpoint != null) {
+			runInMemory();
+			return;
+		}
+		try (socket;
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String response = respond(line);
+				if (response != null) {
+					writer.write(response);
+					writer.write('\n');
+					writer.flush();
+				}
+			}
+		} catch (IOException e) {
+			// サーバ側の切断で終了する
+		}
+	}
+
+	private void runInMemory() {
+		try {
+			while (true) {
+				String response = respond(endpoint.receive(0));
+				if (response != null) {
+					endpoint.reply(response);
+				}
+			}
+		} catch (IOException | InterruptedException | TimeoutException e) {
+			// サーバ側の切断で終了する
+		}
+	}
+
+	public String respond(String line) throws IOException {
+		return respond(mapper.readTree(line));
+	}
+
+	public String respond(Object message) throws IOException {
+		// InMemoryTransportからはJSONの木 (ObjectNode)、またはエンコード済みのバイト列を受け取る
+		if (message instanceof byte[] bytes) {
+			return respond(mapper.readTree(bytes));
+		}
+		return respond((JsonNode) message);
+	}
+
+	private String respond(JsonNode packet) {
+		JsonNode gameInfo = packet.get("gameInfo");
+		if (gameInfo != null) {
+			update(gameInfo);
+		}
+		return answer(packet.get("request").asText());
+	}
+
+	private String answer(String request) {
+		lastRequest = request;
+		return switch (lastRequest) {
+			case "NAME" -> name;
+			case "ROLE" -> "";
+			case "TALK", "WHISPER" -> ++talkCount % 4 == 0 ? "Over" : createTalk();
+			case "VOTE", "DIVINE", "GUARD", "ATTACK" -> aliveAgents.isEmpty() ? "Agent[01]"
+					: aliveAgents.get(random.nextInt(aliveAgents.size()));
+			default -> null;
+		};
+	}
+
+	private String createTalk() {
+		if (talkLength <= 0) {
+			return String.format("hello %d from %s", talkCount, name);
+		}
+		StringBuilder sb = new StringBuilder(talkLength);
+		while (sb.length() < talkLength) {
+			sb.append(TALK_TEXT);
+		}
+		sb.setLength(talkLength);
+		return sb.toString();
+	}
+
+	private void update(JsonNode gameInfo) {
+		if (gameInfo.has("agent")) {
+			me = gameInfo.get("agent").asText();
+		}
+		JsonNode statusMap = gameInfo.get("statusMap");
+		if (statusMap == null) {
+			return;
+		}
+		aliveAgents.clear();
+		Iterator<Map.Entry<String, JsonNode>> fields = statusMap.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			if ("ALIVE".equals(field.getValue().asText()) && !field.getKey().equals(me)) {
+				aliveAgents.add(field.getKey());
+			}
+		}
+	}
+}
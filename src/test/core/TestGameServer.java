@@ -0,0 +1,268 @@
+package test.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import core.Connection;
+import core.GameData;
+import core.GameServer;
+import core.Transport;
+import core.model.Agent;
+import core.model.Config;
+import core.model.GameSetting;
+import core.model.Request;
+import core.model.Role;
+import core.model.Status;
+import core.model.Talk;
+import core.model.Vote;
+import utils.IniLoader;
+import utils.JsonParser;
+
+public class TestGameServer {
+    private static final Role[] ROLES = { Role.SEER, Role.POSSESSED, Role.WEREWOLF, Role.VILLAGER,
+            Role.VILLAGER };
+
+    // 送信されたパケットを記録し、リクエストに応じた応答を返す
+    private static class RecordingTransport implements Transport {
+        private final String name;
+        private final List<ObjectNode> packets = new ArrayList<>();
+        private String response = null;
+        // trueの場合はNAME以外の書き込みを切断まで止める
+        private volatile boolean isBlocking = false;
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private RecordingTransport(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int write(Object packet) throws IOException {
+            ObjectNode tree = packet instanceof byte[] bytes ? JsonParser.toTree(bytes) : JsonParser.toTree(packet);
+            if (isBlocking && !tree.get("request").asText().equals("NAME")) {
+                try {
+                    closed.await();
+                } catch (InterruptedException e) {
+                    // 割り込みでは止まらないソケットへの書き込みを模す
+                }
+                throw new EOFException();
+            }
+            packets.add(tree);
+            response = switch (tree.get("request").asText()) {
+                case "NAME" -> name;
+                case "VOTE" -> "Agent[01]";
+                default -> "";
+            };
+            return 0;
+        }
+
+        @Override
+        public String readLine(long timeout) {
+            return response;
+        }
+
+        @Override
+        public int clear() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        private ObjectNode getLastGameInfo() {
+            return (ObjectNode) packets.get(packets.size() - 1).get("gameInfo");
+        }
+    }
+
+    private final Map<Agent, RecordingTransport> transports = new HashMap<>();
+    private GameData gameData;
+    private GameServer gameServer;
+    private Agent werewolf;
+    private Agent villager;
+
+    private GameServer createGameServer(Map<String, ?> overrides) {
+        Config config = IniLoader.override(new Config(), overrides, Config.class);
+        GameSetting gameSetting = new GameSetting(config);
+        Set<Connection> connections = new HashSet<>();
+        Set<Integer> usedNumberSet = new HashSet<>();
+        for (int i = 0; i < ROLES.length; i++) {
+            RecordingTransport transport = new RecordingTransport("agent" + (i + 1));
+            Connection connection = new Connection(transport, config, usedNumberSet);
+            usedNumberSet.add(connection.getAgent().idx);
+            connections.add(connection);
+            transports.put(connection.getAgent(), transport);
+        }
+        gameData = new GameData(gameSetting);
+        for (int i = 0; i < ROLES.length; i++) {
+            gameData.addAgent(Agent.getAgent(i + 1), Status.ALIVE, ROLES[i]);
+        }
+        werewolf = Agent.getAgent(3);
+        villager = Agent.getAgent(4);
+        GameServer gameServer = new GameServer(gameSetting, config, connections);
+        gameServer.setGameData(gameData);
+        gameServer.setAgents(gameData.getAgents());
+        return gameServer;
+    }
+
+    @Before
+    public void setUp() {
+        gameServer = createGameServer(Map.of("deltaGameInfo", true));
+    }
+
+    private void addTalk(Agent agent) {
+        gameData.addTalk(agent, new Talk(gameData.nextTalkIdx(), gameData.getDay(), 0, agent, "talk from " + agent));
+    }
+
+    private void addWhisper() {
+        gameData.addWhisper(werewolf, new Talk(gameData.nextWhisperIdx(), gameData.getDay(), 0, werewolf, "whisper"));
+    }
+
+    private void startVote() {
+        gameData.addVote(new Vote(gameData.getDay(), villager, werewolf));
+        gameData.setLatestVoteList(gameData.getVotes());
+    }
+
+    private static List<Integer> getIdxList(JsonNode list) {
+        List<Integer> idxList = new ArrayList<>();
+        list.forEach(talk -> idxList.add(talk.get("idx").asInt()));
+        return idxList;
+    }
+
+    private ObjectNode requestVote(Agent agent) {
+        gameServer.requestVote(agent);
+        return transports.get(agent).getLastGameInfo();
+    }
+
+    @Test
+    public void testDeltaTalkList() {
+        addTalk(villager);
+        addTalk(werewolf);
+        gameServer.init(werewolf);
+        assertEquals(List.of(0, 1), getIdxList(transports.get(werewolf).getLastGameInfo().get("talkList")));
+
+        addTalk(villager);
+        startVote();
+        // 初期化の後の最初の差分は先頭から送る
+        assertEquals(List.of(0, 1, 2), getIdxList(requestVote(werewolf).get("talkList")));
+        addTalk(werewolf);
+        addTalk(villager);
+        // 以降は前回の送信以降の発話のみを送る
+        assertEquals(List.of(3, 4), getIdxList(requestVote(werewolf).get("talkList")));
+        assertEquals(List.of(), getIdxList(requestVote(werewolf).get("talkList")));
+
+        // 初期化で先頭に戻る
+        gameServer.dayStart(werewolf);
+        assertEquals(List.of(0, 1, 2, 3, 4), getIdxList(requestVote(werewolf).get("talkList")));
+        addTalk(villager);
+        assertEquals(List.of(5), getIdxList(requestVote(werewolf).get("talkList")));
+    }
+
+    @Test
+    public void testDeltaWhisperList() {
+        addWhisper();
+        gameServer.init(werewolf);
+        gameServer.init(villager);
+        startVote();
+        assertEquals(List.of(0), getIdxList(requestVote(werewolf).get("whisperList")));
+        addWhisper();
+        addWhisper();
+        assertEquals(List.of(1, 2), getIdxList(requestVote(werewolf).get("whisperList")));
+        // 人狼以外には囁きを送らない
+        ObjectNode gameInfo = requestVote(villager);
+        assertTrue(!gameInfo.has("whisperList") || gameInfo.get("whisperList").isEmpty());
+    }
+
+    @Test
+    public void testDeltaPerAgent() {
+        addTalk(villager);
+        gameServer.init(werewolf);
+        gameServer.init(villager);
+        startVote();
+        requestVote(werewolf);
+        addTalk(werewolf);
+        // カーソルはエージェントごとに進む
+        assertEquals(List.of(0, 1), getIdxList(requestVote(villager).get("talkList")));
+        assertEquals(List.of(1), getIdxList(requestVote(werewolf).get("talkList")));
+    }
+
+    @Test
+    public void testDeltaClearedField() {
+        gameServer.init(werewolf);
+        startVote();
+        gameData.setExecutedTarget(villager);
+        assertEquals(villager.toString(), requestVote(werewolf).get("latestExecutedAgent").asText());
+        // 変化していない項目は送らない
+        assertFalse(requestVote(werewolf).has("latestExecutedAgent"));
+        // 出力されなくなった項目はnullで送る
+        gameData.setExecutedTarget(null);
+        ObjectNode gameInfo = requestVote(werewolf);
+        assertTrue(gameInfo.has("latestExecutedAgent"));
+        assertTrue(gameInfo.get("latestExecutedAgent").isNull());
+        assertFalse(requestVote(werewolf).has("latestExecutedAgent"));
+    }
+
+    @Test
+    public void testWithoutInitialize() {
+        // 初期化を送信していないエージェントには全項目を送る
+        addTalk(villager);
+        addTalk(werewolf);
+        startVote();
+        ObjectNode gameInfo = requestVote(werewolf);
+        assertEquals(List.of(0, 1), getIdxList(gameInfo.get("talkList")));
+        assertFalse(gameInfo.path("statusMap").isMissingNode());
+    }
+
+    @Test
+    public void testBroadcast() {
+        // 一斉送信でも個別の送信と同じパケットを送る
+        addTalk(villager);
+        gameServer.broadcast(gameData.getAgents(), Request.INITIALIZE);
+        List<ObjectNode> packets = new ArrayList<>();
+        for (Agent agent : gameData.getAgents()) {
+            packets.add(transports.get(agent).packets.get(1));
+        }
+        for (Agent agent : gameData.getAgents()) {
+            gameServer.init(agent);
+        }
+        for (Agent agent : gameData.getAgents()) {
+            assertEquals(transports.get(agent).packets.get(2), packets.remove(0));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testBroadcastTimeout() throws Exception {
+        gameServer = createGameServer(Map.of("responseTimeout", 100, "actionTimeout", 100,
+                "ignoreAgentException", true));
+        RecordingTransport blocked = transports.get(werewolf);
+        blocked.isBlocking = true;
+        gameServer.broadcast(gameData.getAgents(), Request.INITIALIZE);
+        // 書き込みが終わらない接続は閉じ、以降は書き込まない
+        blocked.closed.await();
+        for (Agent agent : gameData.getAgents()) {
+            assertEquals(agent == werewolf ? 1 : 2, transports.get(agent).packets.size());
+        }
+        blocked.isBlocking = false;
+        gameServer.dayStart(werewolf);
+        assertEquals(1, blocked.packets.size());
+        gameServer.dayStart(villager);
+        assertEquals(3, transports.get(villager).packets.size());
+    }
+}
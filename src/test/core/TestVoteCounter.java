@@ -0,0 +1,103 @@
+package test.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.VoteCounter;
+import core.model.Agent;
+import libs.Counter;
+
+public class TestVoteCounter {
+    private static Agent agent(int idx) {
+        return Agent.setAgent(idx, "agent" + idx);
+    }
+
+    private static VoteCounter count(VoteCounter counter, int... targets) {
+        for (int target : targets) {
+            counter.add(agent(target));
+        }
+        return counter;
+    }
+
+    @Test
+    public void testEmpty() {
+        VoteCounter counter = new VoteCounter();
+        assertTrue(counter.getLargestList().isEmpty());
+        assertEquals(0, counter.getMax());
+        assertEquals(0, counter.get(agent(3)));
+    }
+
+    @Test
+    public void testSingleLargest() {
+        VoteCounter counter = count(new VoteCounter(), 2, 5, 5, 3);
+        assertEquals(List.of(agent(5)), counter.getLargestList());
+        assertEquals(2, counter.getMax());
+        assertEquals(1, counter.get(agent(2)));
+    }
+
+    @Test
+    public void testTieInFirstVoteOrder() {
+        // 同数の場合は最初に票を得た順 (エージェント番号順ではない)
+        VoteCounter counter = count(new VoteCounter(), 4, 1, 3, 1, 4, 3, 2);
+        assertEquals(List.of(agent(4), agent(1), agent(3)), counter.getLargestList());
+    }
+
+    @Test
+    public void testTieOrderNotChangedByLaterVotes() {
+        VoteCounter counter = count(new VoteCounter(), 5, 2, 2, 5);
+        assertEquals(List.of(agent(5), agent(2)), counter.getLargestList());
+    }
+
+    @Test
+    public void testGrowBeyondCapacity() {
+        VoteCounter counter = count(new VoteCounter(1), 15, 9, 15, 9, 12);
+        assertEquals(List.of(agent(15), agent(9)), counter.getLargestList());
+    }
+
+    @Test
+    public void testReuseAfterClear() {
+        VoteCounter counter = count(new VoteCounter(), 1, 1, 2);
+        counter.clear();
+        assertTrue(counter.getLargestList().isEmpty());
+        assertEquals(0, counter.getMax());
+        assertEquals(0, counter.get(agent(1)));
+
+        count(counter, 3, 2, 2, 3);
+        assertEquals(List.of(agent(3), agent(2)), counter.getLargestList());
+        assertEquals(2, counter.getMax());
+        assertEquals(0, counter.get(agent(1)));
+    }
+
+    @Test
+    public void testMatchesCounter() {
+        // 置き換え前のCounterによる集計と同じ候補を同じ順序で返す
+        Random random = new Random(0);
+        VoteCounter counter = new VoteCounter();
+        for (int i = 0; i < 2000; i++) {
+            counter.clear();
+            Counter<Agent> expected = new Counter<>();
+            int votes = random.nextInt(15);
+            for (int j = 0; j < votes; j++) {
+                Agent target = agent(random.nextInt(8) + 1);
+                counter.add(target);
+                expected.add(target);
+            }
+            List<Agent> expectedList = new ArrayList<>();
+            if (votes > 0) {
+                int max = expected.get(expected.getLargest());
+                for (Agent agent : expected) {
+                    if (expected.get(agent) == max) {
+                        expectedList.add(agent);
+                    }
+                }
+            }
+            assertEquals(expectedList, counter.getLargestList());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package test.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import core.model.Agent;
+import core.model.GameInfo;
+import core.model.Packet;
+import core.model.Request;
+import core.model.Talk;
+import core.model.TalkLog;
+import utils.JsonParser;
+
+public class TestTalkLog {
+    private static final String[] TEXTS = {
+            "Over",
+            "私はAgent[01]が人狼だと思います。",
+            "He said \"vote\" \\ now",
+            "tab\tnew\nline \u0001 😀",
+    };
+
+    private static List<Talk> createTalks() {
+        List<Talk> talks = new ArrayList<>();
+        for (int i = 0; i < TEXTS.length * 2; i++) {
+            Agent agent = Agent.setAgent(i % 3 + 1, "agent" + (i % 3 + 1));
+            talks.add(new Talk(i, 1, i / 3, agent, TEXTS[i % TEXTS.length]));
+        }
+        return talks;
+    }
+
+    private static TalkLog createTalkLog(List<Talk> talks) {
+        TalkLog talkLog = new TalkLog();
+        talks.forEach(talkLog::add);
+        return talkLog;
+    }
+
+    private static GameInfo createGameInfo(List<Talk> talkList, List<Talk> whisperList) {
+        GameInfo gameInfo = new GameInfo(1, Agent.setAgent(1, "agent1"));
+        gameInfo.talkList = talkList;
+        gameInfo.whisperList = whisperList;
+        return gameInfo;
+    }
+
+    private static String write(Object packet) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonParser.write(outputStream, packet);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEncodeTalkPacket() throws IOException {
+        List<Talk> talks = createTalks();
+        TalkLog talkLog = createTalkLog(talks);
+        Packet expected = new Packet(Request.TALK, talks, talks.subList(0, 2));
+        Packet actual = new Packet(Request.TALK, talkLog, talkLog.subList(0, 2));
+        assertEquals(JsonParser.encode(expected), JsonParser.encode(actual));
+        assertEquals(write(expected), write(actual));
+    }
+
+    @Test
+    public void testEncodeMatchesTalkEncoding() {
+        // 各発話を個別にエンコードした結果を連結したものと一致する
+        List<Talk> talks = createTalks();
+        String expected = talks.stream().map(JsonParser::encode).collect(Collectors.joining(",", "[", "]"));
+        String json = JsonParser.encode(new Packet(Request.TALK, createTalkLog(talks), null));
+        assertEquals("{\"request\":\"TALK\",\"talkHistory\":" + expected + "}", json);
+    }
+
+    @Test
+    public void testEncodeVotePacket() throws IOException {
+        List<Talk> talks = createTalks();
+        TalkLog talkLog = createTalkLog(talks);
+        Packet expected = new Packet(Request.VOTE, createGameInfo(talks, talks.subList(1, 3)));
+        Packet actual = new Packet(Request.VOTE, createGameInfo(talkLog, talkLog.subList(1, 3)));
+        assertEquals(JsonParser.encode(expected), JsonParser.encode(actual));
+        assertEquals(write(expected), write(actual));
+    }
+
+    @Test
+    public void testToTree() {
+        // 差分送信で使う木構造への変換
+        List<Talk> talks = createTalks();
+        TalkLog talkLog = createTalkLog(talks);
+        assertEquals(JsonParser.toTree(createGameInfo(talks, talks)),
+                JsonParser.toTree(createGameInfo(talkLog, talkLog)));
+        assertEquals(JsonParser.toTree(new Packet(Request.TALK, talks.subList(3, 5), null)),
+                JsonParser.toTree(new Packet(Request.TALK, talkLog.subList(3, 5), null)));
+    }
+
+    @Test
+    public void testEmpty() {
+        List<Talk> talks = new ArrayList<>();
+        TalkLog talkLog = new TalkLog();
+        assertEquals(JsonParser.encode(new Packet(Request.TALK, talks, talks)),
+                JsonParser.encode(new Packet(Request.TALK, talkLog, talkLog)));
+        assertEquals(JsonParser.encode(new Packet(Request.TALK, talks, null)),
+                JsonParser.encode(new Packet(Request.TALK, talkLog.subList(0, 0), null)));
+    }
+
+    @Test
+    public void testSubList() {
+        List<Talk> talks = createTalks();
+        TalkLog talkLog = createTalkLog(talks);
+        TalkLog subList = talkLog.subList(2, 6);
+        assertEquals(talks.subList(2, 6), subList);
+        assertEquals(talks.subList(3, 5), subList.subList(1, 3));
+        assertEquals(JsonParser.encode(talks.get(2)), subList.getFragment(0).getValue());
+        assertEquals(0, talkLog.subList(talks.size(), talks.size()).size());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> talkLog.subList(-1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> talkLog.subList(0, talks.size() + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> talkLog.subList(3, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> subList.subList(0, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> subList.get(4));
+        assertThrows(IndexOutOfBoundsException.class, () -> subList.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> subList.getFragment(4));
+        // ビューは固定長で、追加できない
+        assertThrows(UnsupportedOperationException.class, () -> subList.add(talks.get(0)));
+    }
+
+    @Test
+    public void testSubListIsFixedAfterAppend() {
+        List<Talk> talks = createTalks();
+        TalkLog talkLog = createTalkLog(talks.subList(0, 4));
+        TalkLog subList = talkLog.subList(1, 4);
+        talkLog.add(talks.get(4));
+        assertEquals(talks.subList(1, 4), subList);
+        assertEquals(talks.subList(0, 5), talkLog);
+    }
+
+    @Test
+    public void testReadNew() {
+        List<Talk> talks = createTalks();
+        Agent agent = Agent.setAgent(1, "agent1");
+        TalkLog talkLog = createTalkLog(talks.subList(0, 3));
+        assertEquals(talks.subList(0, 3), talkLog.readNew(agent));
+        // 新しい発話がなければ空のリストを返す
+        assertEquals(List.of(), talkLog.readNew(agent));
+        talkLog.add(talks.get(3));
+        talkLog.add(talks.get(4));
+        TalkLog newTalks = talkLog.readNew(agent);
+        assertEquals(talks.subList(3, 5), newTalks);
+        assertEquals(JsonParser.encode(talks.get(3)), newTalks.getFragment(0).getValue());
+        assertEquals(List.of(), talkLog.readNew(agent));
+    }
+
+    @Test
+    public void testAdvance() {
+        List<Talk> talks = createTalks();
+        Agent agent1 = Agent.setAgent(1, "agent1");
+        Agent agent2 = Agent.setAgent(2, "agent2");
+        TalkLog talkLog = createTalkLog(talks.subList(0, 3));
+        assertEquals(0, talkLog.advance(agent1));
+        assertEquals(3, talkLog.advance(agent1));
+        talkLog.add(talks.get(3));
+        assertEquals(3, talkLog.advance(agent1));
+        assertEquals(4, talkLog.advance(agent1));
+        // カーソルはエージェントごとに独立している
+        assertEquals(0, talkLog.advance(agent2));
+        assertEquals(talks.subList(0, 0), talkLog.readNew(agent2));
+    }
+
+    @Test
+    public void testAdvanceLargeIndex() {
+        // 番号の大きいエージェントではカーソルの配列を拡張する
+        List<Talk> talks = createTalks();
+        Agent agent = Agent.setAgent(100, "agent100");
+        TalkLog talkLog = createTalkLog(talks.subList(0, 2));
+        assertEquals(0, talkLog.advance(agent));
+        talkLog.add(talks.get(2));
+        assertEquals(talks.subList(2, 3), talkLog.readNew(agent));
+    }
+
+    @Test
+    public void testRewind() {
+        List<Talk> talks = createTalks();
+        Agent agent1 = Agent.setAgent(1, "agent1");
+        Agent agent2 = Agent.setAgent(2, "agent2");
+        TalkLog talkLog = createTalkLog(talks.subList(0, 3));
+        talkLog.readNew(agent1);
+        talkLog.readNew(agent2);
+        talkLog.rewind(agent1);
+        // 次の読み出しでは先頭からすべてを返す
+        assertEquals(talks.subList(0, 3), talkLog.readNew(agent1));
+        assertEquals(List.of(), talkLog.readNew(agent1));
+        // 他のエージェントのカーソルは変わらない
+        assertEquals(List.of(), talkLog.readNew(agent2));
+        // 一度も読み出していないエージェントでも例外にならない
+        talkLog.rewind(Agent.setAgent(100, "agent100"));
+        assertEquals(3, talkLog.advance(agent1));
+    }
+
+    @Test
+    public void testInvisibleAgent() {
+        List<Talk> talks = createTalks();
+        Agent visible = Agent.setAgent(1, "agent1");
+        Agent invisible = Agent.setAgent(2, "agent2");
+        TalkLog talkLog = new TalkLog(agent -> agent == visible);
+        talks.subList(0, 3).forEach(talkLog::add);
+        assertTrue(talkLog.isVisible(visible));
+        assertFalse(talkLog.isVisible(invisible));
+        assertEquals(talks.subList(0, 3), talkLog.readNew(visible));
+        // 閲覧できないエージェントには常に空のリストを返すが、カーソルは進める
+        assertEquals(List.of(), talkLog.readNew(invisible));
+        talkLog.add(talks.get(3));
+        assertEquals(List.of(), talkLog.readNew(invisible));
+        assertEquals(4, talkLog.advance(invisible));
+        assertEquals(talks.subList(3, 4), talkLog.readNew(visible));
+    }
+
+    @Test
+    public void testCursorOnSubList() {
+        // ビューはカーソルを持たない
+        TalkLog subList = createTalkLog(createTalks()).subList(1, 3);
+        Agent agent = Agent.setAgent(1, "agent1");
+        assertThrows(UnsupportedOperationException.class, () -> subList.advance(agent));
+        assertThrows(UnsupportedOperationException.class, () -> subList.readNew(agent));
+    }
+}
@@ -0,0 +1,198 @@
+package test.libs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import libs.AsyncLogWriter;
+import libs.AsyncLogWriter.FlushPolicy;
+import libs.AsyncLogWriter.FsyncPolicy;
+import libs.AsyncLogWriter.OverflowPolicy;
+import libs.RawFileLogger;
+
+public class TestAsyncLogWriter {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AsyncLogWriter asyncWriter = null;
+
+    @After
+    public void tearDown() {
+        RawFileLogger.setAsyncWriter(null);
+        if (asyncWriter != null) {
+            asyncWriter.close();
+        }
+    }
+
+    private AsyncLogWriter start(int capacity, FlushPolicy flushPolicy, OverflowPolicy overflowPolicy) {
+        asyncWriter = new AsyncLogWriter(capacity, flushPolicy, 1000, FsyncPolicy.NONE, overflowPolicy);
+        RawFileLogger.setAsyncWriter(asyncWriter);
+        return asyncWriter;
+    }
+
+    private static List<String> createLines(String prefix, int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(prefix + "," + i);
+        }
+        return lines;
+    }
+
+    private static List<String> read(File file) throws IOException {
+        return file.exists() ? Files.readAllLines(file.toPath()) : List.of();
+    }
+
+    @Test
+    public void testCloseWritesQueuedLines() throws IOException {
+        // クローズ時のみフラッシュするため、書き込みスレッドの終了までに残りの行をすべて書き出す
+        start(16, FlushPolicy.CLOSE, OverflowPolicy.BLOCK);
+        List<File> files = new ArrayList<>();
+        List<RawFileLogger> loggers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            File file = new File(folder.getRoot(), "sub/" + i + ".log");
+            files.add(file);
+            loggers.add(new RawFileLogger(file));
+        }
+        for (String line : createLines("line", 1000)) {
+            for (RawFileLogger logger : loggers) {
+                logger.log(line);
+            }
+        }
+        asyncWriter.close();
+        for (File file : files) {
+            assertEquals(createLines("line", 1000), read(file));
+        }
+        assertEquals(0, asyncWriter.getDropped());
+    }
+
+    @Test
+    public void testCloseTarget() throws Exception {
+        // ファイルごとのクローズで残りの行を書き出す
+        start(16, FlushPolicy.CLOSE, OverflowPolicy.BLOCK);
+        File file = folder.newFile("game.log");
+        RawFileLogger logger = new RawFileLogger(file);
+        createLines("line", 100).forEach(logger::log);
+        logger.close();
+        waitFor(() -> read(file).size() == 100);
+        assertEquals(createLines("line", 100), read(file));
+    }
+
+    @Test
+    public void testShutdownWritesQueuedLines() throws Exception {
+        // 書き込み中のファイルを閉じずにJVMを終了しても、終了時のフックで書き出す
+        File file = new File(folder.getRoot(), "shutdown.log");
+        Process process = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(), "-cp",
+                System.getProperty("java.class.path"), TestAsyncLogWriter.class.getName(), file.getPath())
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue());
+        assertEquals(createLines("line", 10000), read(file));
+    }
+
+    // testShutdownWritesQueuedLinesから別のJVMで実行する
+    public static void main(String[] args) throws IOException {
+        RawFileLogger.setAsyncWriter(
+                new AsyncLogWriter(16, FlushPolicy.CLOSE, 1000, FsyncPolicy.NONE, OverflowPolicy.BLOCK));
+        RawFileLogger logger = new RawFileLogger(new File(args[0]));
+        createLines("line", 10000).forEach(logger::log);
+    }
+
+    @Test
+    public void testDropCountsDiscardedLines() throws Exception {
+        // 容量1のバッファでは書き込みスレッドが追いつかず、行を破棄する
+        start(1, FlushPolicy.CLOSE, OverflowPolicy.DROP);
+        File file = folder.newFile("drop.log");
+        RawFileLogger logger = new RawFileLogger(file);
+        int count = 100000;
+        createLines("line", count).forEach(logger::log);
+        // クローズは破棄しないため、書き込みスレッドの終了前に残りの行が書き出される
+        logger.close();
+        waitFor(() -> read(file).size() + asyncWriter.getDropped() == count);
+        assertTrue(asyncWriter.getDropped() > 0);
+        List<String> lines = read(file);
+        assertEquals(count, lines.size() + asyncWriter.getDropped());
+        // 書き込んだ行は追加した順に並ぶ
+        List<String> expected = createLines("line", count);
+        assertTrue(expected.containsAll(lines));
+        int last = -1;
+        for (String line : lines) {
+            int index = Integer.parseInt(line.substring(line.indexOf(',') + 1));
+            assertTrue(index > last);
+            last = index;
+        }
+    }
+
+    @Test
+    public void testLogAfterClose() throws Exception {
+        start(16, FlushPolicy.REQUEST, OverflowPolicy.BLOCK);
+        File file = folder.newFile("closed.log");
+        RawFileLogger logger = new RawFileLogger(file);
+        logger.log("before");
+        logger.close();
+        waitFor(() -> read(file).size() == 1);
+        // クローズ後の行ではファイルを開き直さない
+        logger.log("after");
+        logger.flush();
+        logger.close();
+        // 開き直していれば書き込みスレッドの終了時に書き出される
+        asyncWriter.close();
+        assertEquals(List.of("before"), read(file));
+    }
+
+    @Test(timeout = 10000)
+    public void testLogAfterWriterClose() throws Exception {
+        // 書き込みスレッドの終了後は待たずに破棄し、破棄した行数に数える
+        for (OverflowPolicy overflowPolicy : OverflowPolicy.values()) {
+            start(1, FlushPolicy.REQUEST, overflowPolicy);
+            File file = folder.newFile(overflowPolicy + ".log");
+            RawFileLogger logger = new RawFileLogger(file);
+            asyncWriter.close();
+            createLines("line", 10).forEach(logger::log);
+            logger.flush();
+            logger.close();
+            assertEquals(List.of(), read(file));
+            assertEquals(10, asyncWriter.getDropped());
+        }
+    }
+
+    @Test
+    public void testInterruptedLogIsCounted() throws Exception {
+        start(16, FlushPolicy.CLOSE, OverflowPolicy.BLOCK);
+        File file = folder.newFile("interrupted.log");
+        RawFileLogger logger = new RawFileLogger(file);
+        logger.log("before");
+        Thread.currentThread().interrupt();
+        try {
+            logger.log("interrupted");
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+        logger.log("after");
+        asyncWriter.close();
+        assertEquals(List.of("before", "after"), read(file));
+        assertEquals(1, asyncWriter.getDropped());
+    }
+
+    private interface Condition {
+        boolean test() throws Exception;
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.test()) {
+            assertTrue("Timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package test.libs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import libs.LineQueue;
+import libs.QueuedBufferedReader;
+
+public class TestLineQueue {
+    @Test
+    public void testPoll() throws Exception {
+        LineQueue lineQueue = new LineQueue();
+        assertTrue(lineQueue.add("a"));
+        assertTrue(lineQueue.add("b"));
+        assertEquals("a", lineQueue.poll(100));
+        assertEquals(1, lineQueue.clear());
+        assertThrows(TimeoutException.class, () -> lineQueue.poll(10));
+        lineQueue.close(null);
+        assertFalse(lineQueue.add("c"));
+        // 終了後は何度読み出しても終了を通知する
+        assertThrows(EOFException.class, () -> lineQueue.poll(100));
+        assertThrows(EOFException.class, () -> lineQueue.poll(100));
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        LineQueue lineQueue = new LineQueue();
+        for (int i = 0; i < LineQueue.CAPACITY; i++) {
+            assertTrue(lineQueue.add("line" + i));
+        }
+        // 上限を超えると未読の行を破棄して終了する
+        assertFalse(lineQueue.add("overflow"));
+        IOException exception = assertThrows(IOException.class, () -> lineQueue.poll(100));
+        assertEquals("Too many unread lines.", exception.getMessage());
+        // 後から通知された終了の理由では上書きしない
+        lineQueue.close(new IOException("closed"));
+        assertEquals("Too many unread lines.", assertThrows(IOException.class, () -> lineQueue.poll(100)).getMessage());
+        assertEquals(0, lineQueue.clear());
+    }
+
+    private static QueuedBufferedReader start(String text) {
+        QueuedBufferedReader reader = new QueuedBufferedReader(new BufferedReader(new StringReader(text)));
+        reader.start("TestLineQueue");
+        return reader;
+    }
+
+    @Test
+    public void testReadLine() throws Exception {
+        // BufferedReader.readLineと同じくLF、CR、CRLFのいずれでも区切る
+        QueuedBufferedReader reader = start("a\nb\r\nc\rd\n\ne");
+        for (String line : new String[] { "a", "b", "c", "d", "", "e" }) {
+            assertEquals(line, reader.poll(1000));
+        }
+        assertThrows(EOFException.class, () -> reader.poll(1000));
+    }
+
+    @Test
+    public void testLineTooLong() throws Exception {
+        String line = "x".repeat(LineQueue.MAX_LINE_LENGTH);
+        QueuedBufferedReader reader = start(line + "\n" + line + "x\nnext\n");
+        assertEquals(line, reader.poll(1000));
+        IOException exception = assertThrows(IOException.class, () -> reader.poll(1000));
+        assertEquals("Line too long.", exception.getMessage());
+    }
+
+    @Test
+    public void testTooManyLines() throws Exception {
+        // 読み出さずに行を送り続けられても、上限を超えた時点で読み込みを終了する
+        QueuedBufferedReader reader = start("line\n".repeat(LineQueue.CAPACITY * 2));
+        Thread.sleep(500);
+        // 接続を切断するため、未読の行も破棄する
+        IOException exception = assertThrows(IOException.class, () -> reader.poll(1000));
+        assertEquals("Too many unread lines.", exception.getMessage());
+    }
+}
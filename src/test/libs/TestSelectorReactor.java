@@ -0,0 +1,112 @@
+package test.libs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import libs.LineQueue;
+import libs.SelectorReactor;
+
+public class TestSelectorReactor {
+    private static final SelectorReactor reactor = new SelectorReactor(1);
+
+    private ServerSocketChannel serverChannel;
+    private SocketChannel client;
+    private SocketChannel server;
+
+    // 受信した行と切断の理由を記録する
+    private static class RecordingHandler implements SelectorReactor.LineHandler {
+        private final List<String> lines = new CopyOnWriteArrayList<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private final int capacity;
+        private volatile IOException exception = null;
+
+        private RecordingHandler(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean onLine(String line) {
+            lines.add(line);
+            return lines.size() < capacity;
+        }
+
+        @Override
+        public void onClose(IOException exception) {
+            this.exception = exception;
+            closed.countDown();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = SocketChannel.open(serverChannel.getLocalAddress());
+        server = serverChannel.accept();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        serverChannel.close();
+    }
+
+    private void send(String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+
+    @Test
+    public void testLines() throws Exception {
+        RecordingHandler handler = new RecordingHandler(Integer.MAX_VALUE);
+        reactor.register(server, handler);
+        send("a\r\nb\n\n");
+        client.close();
+        assertTrue(handler.closed.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b", ""), handler.lines);
+        assertEquals(null, handler.exception);
+    }
+
+    @Test
+    public void testLineTooLong() throws Exception {
+        // 改行を送らないエージェントは1行の長さの上限で切断する
+        RecordingHandler handler = new RecordingHandler(Integer.MAX_VALUE);
+        reactor.register(server, handler);
+        send("ok\n");
+        byte[] chunk = new byte[64 * 1024];
+        for (int sent = 0; sent <= LineQueue.MAX_LINE_LENGTH && handler.closed.getCount() > 0; sent += chunk.length) {
+            send(new String(chunk, StandardCharsets.UTF_8));
+        }
+        assertTrue(handler.closed.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("ok"), handler.lines);
+        assertEquals("Line too long.", handler.exception.getMessage());
+    }
+
+    @Test
+    public void testHandlerStopsReading() throws Exception {
+        // ハンドラが受け付けなくなった時点で読み込みを終了する
+        RecordingHandler handler = new RecordingHandler(2);
+        reactor.register(server, handler);
+        send("a\nb\nc\nd\n");
+        assertTrue(handler.closed.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("a", "b"), handler.lines);
+    }
+}
@@ -29,4 +29,13 @@ public class IniLoader {
         Map<String, Map<String, String>> map = parseIniFile(new File(filename));
         return mapper.convertValue(map.get(clazz.getSimpleName()), clazz);
     }
+
+    public static <T> T override(T base, Map<String, ?> overrides, Class<T> clazz) {
+        // 設定ファイルと同様に文字列の値も受け付ける
+        ObjectMapper mapper = new ObjectMapper();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> map = mapper.convertValue(base, Map.class);
+        map.putAll(overrides);
+        return mapper.convertValue(map, clazz);
+    }
 }
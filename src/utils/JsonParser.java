@@ -1,30 +1,119 @@
 package utils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import core.model.Agent;
+import core.model.GameInfo;
+import core.model.Judge;
+import core.model.Packet;
+import core.model.Request;
+import core.model.Role;
+import core.model.Species;
+import core.model.Talk;
+import core.model.TalkLog;
+import core.model.Vote;
 
 public class JsonParser {
 	private static final Logger logger = LogManager.getLogger(JsonParser.class);
 
+	// ObjectMapper/ObjectWriter/ObjectReaderは設定後スレッドセーフなので全体で共有する
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	static {
+		// 出力先のストリームは呼び出し側で改行の追加とフラッシュを行うため閉じない
+		mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+		mapper.configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false);
+		writers.put(Packet.class, mapper.writerFor(Packet.class));
+		writers.put(GameInfo.class, mapper.writerFor(GameInfo.class));
+		writers.put(Agent.class, mapper.writerFor(Agent.class));
+		readers.put(Agent.class, mapper.readerFor(Agent.class));
+	}
+
+	private static ObjectWriter getWriter(Class<?> clazz) {
+		return writers.computeIfAbsent(clazz, mapper::writerFor);
+	}
+
+	private static ObjectReader getReader(Class<?> clazz) {
+		return readers.computeIfAbsent(clazz, mapper::readerFor);
+	}
+
+	public static void warmUp() {
+		// 各リクエストで使われるシリアライザを事前に生成しておく
+		GameInfo gameInfo = new GameInfo(0, null);
+		TalkLog talkList = new TalkLog();
+		talkList.add(new Talk(0, 0, 0, null, Talk.OVER));
+		gameInfo.talkList = talkList;
+		gameInfo.voteList = new ArrayList<>(List.of(new Vote(0, null, null)));
+		gameInfo.divineResult = new Judge(0, null, null, Species.HUMAN);
+		gameInfo.existingRoleList = new ArrayList<>(List.of(Role.VILLAGER));
+		for (Request request : Request.values()) {
+			encode(new Packet(request, gameInfo));
+			encode(new Packet(request, talkList, talkList));
+		}
+	}
+
 	public static String encode(Object obj) {
-		ObjectMapper mapper = new ObjectMapper();
 		try {
-			return mapper.writeValueAsString(obj);
+			if (obj == null) {
+				return mapper.writeValueAsString(null);
+			}
+			return getWriter(obj.getClass()).writeValueAsString(obj);
+		} catch (Exception e) {
+			logger.error("Exception", e);
+			return null;
+		}
+	}
+
+	public static byte[] encodeAsBytes(Object obj) {
+		// ストリームへの出力と同じUTF-8のバイト列 (BMP外の文字はサロゲートペアのエスケープで出力される)
+		try {
+			return getWriter(obj.getClass()).writeValueAsBytes(obj);
 		} catch (Exception e) {
 			logger.error("Exception", e);
 			return null;
 		}
 	}
 
+	public static void write(OutputStream outputStream, Object obj) throws IOException {
+		// エンコード済みのバイト列 (encodeAsBytes) はそのまま書き込む
+		if (obj instanceof byte[] bytes) {
+			outputStream.write(bytes);
+			return;
+		}
+		getWriter(obj.getClass()).writeValue(outputStream, obj);
+	}
+
+	public static ObjectNode toTree(Object obj) {
+		return mapper.valueToTree(obj);
+	}
+
+	public static ObjectNode toTree(byte[] json) throws IOException {
+		return (ObjectNode) mapper.readTree(json);
+	}
+
 	public static <T> T decode(String json, Class<T> clazz) {
 		if (!json.startsWith("{") && !json.endsWith("}") && !json.startsWith("\"") && !json.endsWith("\"")) {
 			json = "\"" + json + "\"";
 		}
-		ObjectMapper mapper = new ObjectMapper();
 		try {
-			return mapper.readValue(json, clazz);
+			return getReader(clazz).readValue(json);
 		} catch (Exception e) {
 			logger.error("Exception", e);
 			return null;
@@ -0,0 +1,38 @@
+package utils;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import core.model.Talk;
+import core.model.TalkLog;
+
+/**
+ * 発話のリストを出力する。TalkLogの場合はエンコード済みの断片をそのまま書き込む。
+ */
+public class TalkListSerializer extends StdSerializer<List<Talk>> {
+    public TalkListSerializer() {
+        super(List.class, false);
+    }
+
+    @Override
+    public void serialize(List<Talk> talks, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
+            throws IOException {
+        jsonGenerator.writeStartArray(talks, talks.size());
+        // 木構造への変換 (差分送信) では生のJSONを扱えないため通常どおり出力する
+        if (talks instanceof TalkLog talkLog && !(jsonGenerator instanceof TokenBuffer)) {
+            for (int i = 0; i < talkLog.size(); i++) {
+                jsonGenerator.writeRawValue(talkLog.getFragment(i));
+            }
+        } else {
+            for (Talk talk : talks) {
+                serializerProvider.defaultSerializeValue(talk, jsonGenerator);
+            }
+        }
+        jsonGenerator.writeEndArray();
+    }
+}
@@ -0,0 +1,38 @@
+package utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ThreadBuilder {
+	private static volatile boolean useVirtualThread = false;
+
+	public static void setUseVirtualThread(boolean useVirtualThread) {
+		ThreadBuilder.useVirtualThread = useVirtualThread;
+	}
+
+	public static boolean isUseVirtualThread() {
+		return useVirtualThread;
+	}
+
+	public static Thread start(String name, Runnable task) {
+		if (useVirtualThread) {
+			return Thread.ofVirtual().name(name).start(task);
+		}
+		return Thread.ofPlatform().name(name).start(task);
+	}
+
+	public static Thread startDaemon(String name, Runnable task) {
+		if (useVirtualThread) {
+			// 仮想スレッドは常にデーモンスレッド
+			return Thread.ofVirtual().name(name).start(task);
+		}
+		return Thread.ofPlatform().name(name).daemon(true).start(task);
+	}
+
+	public static ExecutorService newExecutor(String name) {
+		if (useVirtualThread) {
+			return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name, 0).factory());
+		}
+		return Executors.newCachedThreadPool(Thread.ofPlatform().name(name, 0).daemon(true).factory());
+	}
+}